@@ -94,6 +94,11 @@ public class TermReader {
 
     private static final Pattern NUMBER_RE = Pattern.compile("([-+]?\\d+)((\\.\\d+([eE][-+]?\\d+)?)|([eE][-+]?\\d+))?");
 
+    /** Answer the number `s` spells, in the syntax of number atoms, or None if it spells none. */
+    public static immutable.Maybe<Double> parseNumber(String s) {
+        return NUMBER_RE.matcher(s).matches() ? new immutable.Some<>(Double.parseDouble(s)) : new immutable.None<>();
+    }
+
     private Atom readSymbolOrNumber() throws IOException {
         var b = new StringBuilder();
         while (true) {
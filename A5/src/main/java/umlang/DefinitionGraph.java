@@ -0,0 +1,301 @@
+package umlang;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import immutable.List;
+import immutable.Maybe;
+import immutable.None;
+import immutable.Some;
+import syntax.AtomSymbol;
+import umlang.ast.Bool;
+import umlang.ast.Call;
+import umlang.ast.CallMethod;
+import umlang.ast.Conditional;
+import umlang.ast.Definition;
+import umlang.ast.Exp;
+import umlang.ast.ExtendObj;
+import umlang.ast.Fn;
+import umlang.ast.GlobalRef;
+import umlang.ast.InertObj;
+import umlang.ast.Let;
+import umlang.ast.LocalRef;
+import umlang.ast.Num;
+import umlang.ast.PrimOp;
+import umlang.ast.Ref;
+import umlang.ast.Seq;
+import umlang.ast.Str;
+import umlang.ast.Throw;
+import umlang.ast.ToplevelClause;
+import umlang.ast.TryCatch;
+import umlang.errors.InterpretationException;
+import umlang.value.VCell;
+import umlang.value.VFn;
+import umlang.value.VMap;
+import umlang.value.VObj;
+import umlang.value.VVec;
+import umlang.value.Value;
+
+/**
+ * A DefinitionGraph evaluates the clauses of a program in parallel where that cannot change their
+ * meaning: see Interpreter.setParallelism.
+ *
+ * A clause "reaches" the globals it refers to, and whatever those reach in turn: through the program's
+ * own definitions of them, or, for globals defined earlier, through the code of their current values.
+ * A clause has effects if it reaches `display`, `newline`, or a primitive that updates a cell, vector
+ * or map.
+ * Clause j runs after an earlier clause i if
+ * - i defines a global j reaches, j defines one i reaches, or both define the same one;
+ * - i has effects and reaches a global that j reaches too; or
+ * - j has effects, in which case it runs after every earlier clause.
+ * Any other clauses are independent, and run in parallel on the pool, each on a `fork` of the
+ * interpreter. Clauses with effects keep their order, and the error signalled is that of the earliest
+ * failing clause, as it would be if the clauses ran one at a time; however, independent clauses after a
+ * failing one may already have run.
+ */
+final class DefinitionGraph {
+    private static final Set<AtomSymbol> EFFECTS = Set.of(
+        new AtomSymbol("display"), new AtomSymbol("newline"), new AtomSymbol("set"),
+        new AtomSymbol("vector-set!"), new AtomSymbol("vector-sort!"),
+        new AtomSymbol("map-put!"), new AtomSymbol("map-remove!"));
+
+    private final Interpreter interpreter;
+    private final GlobalEnvironment<Value> globals;
+    /** The clauses' Exps, resolved and optimized, and the globals they define, or null for Exps. */
+    private final Exp[] exps;
+    private final AtomSymbol[] defines;
+    /** The clauses defining each global. */
+    private final Map<AtomSymbol, ArrayList<Integer>> definers = new HashMap<>();
+    /** The globals the current value of each global reaches directly, for those the program does not define. */
+    private final Map<AtomSymbol, Set<AtomSymbol>> valueRefs = new HashMap<>();
+    /** The globals each clause reaches, and the clauses reaching each global. */
+    private final ArrayList<Set<AtomSymbol>> reaches = new ArrayList<>();
+    private final Map<AtomSymbol, ArrayList<Integer>> reachers = new HashMap<>();
+    private final boolean[] effects;
+    /** The globals each clause's Exp refers to directly. */
+    private final ArrayList<Set<AtomSymbol>> refs = new ArrayList<>();
+    /** The earlier clauses each clause runs after. */
+    private final ArrayList<Set<Integer>> predecessors = new ArrayList<>();
+
+    /** Build the graph of `program`, all of whose definitions must already be declared. */
+    DefinitionGraph(Interpreter interpreter, List<ToplevelClause> program) {
+        this.interpreter = interpreter;
+        this.globals = interpreter.globals();
+        var n = program.length();
+        exps = new Exp[n];
+        defines = new AtomSymbol[n];
+        effects = new boolean[n];
+        var i = 0;
+        for (var c : program) {
+            switch (c) {
+                case Definition(var name, var initializer) -> {
+                    defines[i] = name;
+                    exps[i] = interpreter.prepare(initializer);
+                    definers.computeIfAbsent(name, (k) -> new ArrayList<>()).add(i);
+                }
+                case Exp e -> exps[i] = interpreter.prepare(e);
+            }
+            refs.add(refs(exps[i], new HashSet<>()));
+            i++;
+        }
+        for (i = 0; i < n; i++) {
+            var reached = reach(i);
+            reaches.add(reached);
+            for (var name : reached) {
+                reachers.computeIfAbsent(name, (k) -> new ArrayList<>()).add(i);
+            }
+        }
+        var lastEffect = -1;
+        for (var j = 0; j < n; j++) {
+            var before = new HashSet<Integer>();
+            if (effects[j]) {
+                // Every clause up to the last one with effects already runs after all of its predecessors.
+                for (var k = Math.max(lastEffect, 0); k < j; k++) {
+                    before.add(k);
+                }
+                lastEffect = j;
+            } else {
+                for (var name : reaches.get(j)) {
+                    addEarlier(before, definers.get(name), j);
+                    for (var k : reachers.get(name)) {
+                        if (k < j && effects[k]) before.add(k);
+                    }
+                }
+                if (defines[j] != null) {
+                    addEarlier(before, definers.get(defines[j]), j);
+                    addEarlier(before, reachers.get(defines[j]), j);
+                }
+            }
+            predecessors.add(before);
+        }
+    }
+
+    /** Evaluate the program on `pool`, answering its result as evaluateProgram would. */
+    Maybe<Value> evaluate(ForkJoinPool pool) throws InterpretationException {
+        var n = exps.length;
+        var values = new Value[n];
+        var errors = new Throwable[n];
+        var workers = new ConcurrentHashMap<Thread, Interpreter>();
+        var futures = new ArrayList<CompletableFuture<Void>>(n);
+        for (var j = 0; j < n; j++) {
+            var clause = j;
+            var ready = CompletableFuture.allOf(predecessors.get(j).stream().map(futures::get).toArray(CompletableFuture[]::new));
+            futures.add(ready.thenRunAsync(() -> {
+                try {
+                    var worker = workers.computeIfAbsent(Thread.currentThread(), (t) -> interpreter.fork());
+                    var value = worker.evaluate(exps[clause], Frame.EMPTY);
+                    if (defines[clause] != null) {
+                        globals.set(defines[clause], value);
+                    }
+                    values[clause] = value;
+                } catch (InterpretationException | RuntimeException e) {
+                    errors[clause] = e;
+                    throw new CompletionException(e);
+                }
+            }, pool));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((result, e) -> null).join();
+        for (var e : errors) {
+            switch (e) {
+                case null -> {}
+                case InterpretationException ie -> throw ie;
+                case RuntimeException re -> throw re;
+                default -> throw new IllegalStateException(e);
+            }
+        }
+        return n == 0 || defines[n - 1] != null ? new None<>() : new Some<>(values[n - 1]);
+    }
+
+    private static void addEarlier(Set<Integer> before, ArrayList<Integer> clauses, int j) {
+        if (clauses != null) {
+            for (var k : clauses) {
+                if (k < j) before.add(k);
+            }
+        }
+    }
+
+    /** Answer the globals clause `i` reaches, noting whether it has effects. */
+    private Set<AtomSymbol> reach(int i) {
+        var reached = new HashSet<AtomSymbol>();
+        var pending = new ArrayList<AtomSymbol>(refs.get(i));
+        while (!pending.isEmpty()) {
+            var name = pending.removeLast();
+            if (EFFECTS.contains(name)) {
+                effects[i] = true;
+            }
+            if (!reached.add(name)) continue;
+            var clauses = definers.get(name);
+            if (clauses != null) {
+                for (var k : clauses) {
+                    pending.addAll(refs.get(k));
+                }
+            } else {
+                pending.addAll(valueRefs.computeIfAbsent(name, this::currentValueRefs));
+            }
+        }
+        // Primitives and unbound names are no state that clauses could share.
+        reached.removeIf((name) -> !definers.containsKey(name) && !globals.isDeclared(name));
+        return reached;
+    }
+
+    /** Answer the globals the current value of `name` reaches directly. */
+    private Set<AtomSymbol> currentValueRefs(AtomSymbol name) {
+        var out = new HashSet<AtomSymbol>();
+        if (globals.isDeclared(name) && globals.cell(name).value() instanceof Value v) {
+            refs(v, new IdentityHashMap<>(), out);
+        }
+        return out;
+    }
+
+    /** Add the globals `exp` refers to to `out`, answering `out`. */
+    private static Set<AtomSymbol> refs(Exp exp, Set<AtomSymbol> out) {
+        switch (exp) {
+            case Ref(var name) -> out.add(name);
+            case GlobalRef(var name, var cell) -> out.add(name);
+            case LocalRef r -> {}
+            case Num n -> {}
+            case Bool b -> {}
+            case Str s -> {}
+            case Conditional(var test, var ifTrue, var ifFalse) -> {
+                refs(test, out);
+                refs(ifTrue, out);
+                refs(ifFalse, out);
+            }
+            case Let(var names, var inits, var body) -> {
+                refsAll(inits, out);
+                refs(body, out);
+            }
+            case Fn(var formals, var body, var captures, var arity) -> refs(body, out);
+            case Call(var fnExp, var args) -> {
+                refs(fnExp, out);
+                refsAll(args, out);
+            }
+            case PrimOp(var kind, var args, var cell) -> {
+                out.add(kind.symbol());
+                refsAll(args, out);
+            }
+            case Seq(var exps) -> refsAll(exps, out);
+            case InertObj o -> {}
+            case ExtendObj(var selector, var formals, var body, var base, var captures, var arity) -> {
+                refs(body, out);
+                refs(base, out);
+            }
+            case CallMethod(var objExp, var selector, var args, var cache) -> {
+                refs(objExp, out);
+                refsAll(args, out);
+            }
+            case Throw(var exnExp) -> refs(exnExp, out);
+            case TryCatch(var body, var exnVar, var handler) -> {
+                refs(body, out);
+                refs(handler, out);
+            }
+        }
+        return out;
+    }
+
+    private static void refsAll(List<Exp> exps, Set<AtomSymbol> out) {
+        for (var e : exps) {
+            refs(e, out);
+        }
+    }
+
+    /** Add the globals the code in `v` refers to to `out`, visiting each Value at most once. */
+    private static void refs(Value v, IdentityHashMap<Value, Value> seen, Set<AtomSymbol> out) {
+        if (v == null || seen.put(v, v) != null) return;
+        switch (v) {
+            case VFn fn -> {
+                refs(fn.body(), out);
+                for (var f = fn.env(); f != null; f = f.parent()) {
+                    for (var slot : f.slots()) {
+                        refs(slot, seen, out);
+                    }
+                }
+            }
+            case VObj o -> {
+                for (var method : o.slots()) {
+                    refs(method, seen, out);
+                }
+            }
+            case VCell c -> refs(c.contents(), seen, out);
+            case VVec vec -> {
+                for (var e : vec.toArray()) {
+                    refs(e, seen, out);
+                }
+            }
+            case VMap map -> {
+                for (var e : map.entries()) {
+                    refs(e, seen, out);
+                }
+            }
+            default -> {}
+        }
+    }
+}
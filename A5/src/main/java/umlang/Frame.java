@@ -0,0 +1,77 @@
+package umlang;
+
+import immutable.List;
+import immutable.Nil;
+import umlang.ast.LocalRef;
+import umlang.value.VNum;
+import umlang.value.Value;
+
+/**
+ * A Frame is one link in the chain of lexical activation records used while evaluating resolved `Exp`s.
+ * Each `Let` and each call of a `VFn` allocates exactly one Frame, whose `slots` hold the bound values
+ * in the order the Resolver assigned them. See `umlang.ast.LocalRef`.
+ *
+ * Closures are flat: a `VFn` does not keep the Frame it was created in, only a parentless Frame holding
+ * the values of its free variables (see `capture`). A call's Frame has that captured Frame as its parent.
+ *
+ * A slot may also hold an unboxed number: its entry in `slots` is null and its entry in `numbers` is the
+ * number. `numbers` is null in Frames that have no such slots. Only the node engine fills slots this way
+ * (see `umlang.node.Node.executeNum`); `lookup` boxes the number the first time anything reads it as a
+ * Value, and keeps the VNum so later reads share it.
+ */
+public record Frame(Value[] slots, double[] numbers, Frame parent) {
+    /** The frame used for evaluation outside of any `Let` or `Fn`. It has no slots. */
+    public static final Frame EMPTY = new Frame(new Value[0], null);
+
+    /** A Frame whose slots all hold Values. */
+    public Frame(Value[] slots, Frame parent) {
+        this(slots, null, parent);
+    }
+
+    /** Answer the frame `depth` links up the chain from `this`. */
+    public Frame ancestor(int depth) {
+        var f = this;
+        while (depth > 0) {
+            f = f.parent;
+            depth--;
+        }
+        return f;
+    }
+
+    /** Retrieve the value in slot `index` of the frame `depth` links up the chain from `this`. */
+    public Value lookup(int depth, int index) {
+        var f = ancestor(depth);
+        var v = f.slots[index];
+        if (v == null) {
+            v = VNum.of(f.numbers[index]);
+            f.slots[index] = v;
+        }
+        return v;
+    }
+
+    /** Answer a new Frame whose slots hold `values`, in order, and whose parent is `this`. */
+    public Frame extend(List<Value> values) {
+        var slots = new Value[values.length()];
+        var i = 0;
+        for (var v : values) {
+            slots[i++] = v;
+        }
+        return new Frame(slots, this);
+    }
+
+    /**
+     * Answer a parentless Frame holding the values that `sources` address from `this`, in order.
+     * This is the whole environment of a closure created here; closures without free variables share `EMPTY`.
+     */
+    public Frame capture(List<LocalRef> sources) {
+        if (sources instanceof Nil) {
+            return EMPTY;
+        }
+        var slots = new Value[sources.length()];
+        var i = 0;
+        for (var r : sources) {
+            slots[i++] = lookup(r.depth(), r.index());
+        }
+        return new Frame(slots, null);
+    }
+}
@@ -0,0 +1,99 @@
+package umlang;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import syntax.AtomSymbol;
+import umlang.errors.InterpretationException;
+import umlang.errors.UnboundVariable;
+import umlang.errors.UninitializedGlobal;
+
+/**
+ * A GlobalCell holds the binding of one global name in a GlobalEnvironment. It is
+ * - undeclared: the name has not been introduced as a global. It may still hold a provisional
+ *   value, which is what the name means until it is declared (e.g. the primitive of that name).
+ * - declared but uninitialized: it holds no value, and reading it signals UninitializedGlobal.
+ * - initialized: it holds the value most recently `set`.
+ *
+ * Linked `GlobalRef`s point straight at their GlobalCell, so a read is a single field load and
+ * null check.
+ *
+ * Cells may be shared between threads. Reads take no lock: the value is loaded with acquire semantics
+ * and stored with release semantics, so a thread that sees a value, such as a VFn, also sees everything
+ * written before it was stored, such as its closure's Frame. Writes, which are rare, lock the cell, so a
+ * `provide` cannot slip in between a `declare` and the reads that follow it.
+ */
+public final class GlobalCell<X> {
+    private static final VarHandle VALUE;
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(GlobalCell.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final AtomSymbol name;
+    private volatile boolean declared = false;
+    @SuppressWarnings("unused") // Accessed through VALUE.
+    private Object value = null;
+
+    GlobalCell(AtomSymbol name) {
+        this.name = name;
+    }
+
+    public AtomSymbol name() {
+        return name;
+    }
+
+    /** Answer the value, signalling UninitializedGlobal or UnboundVariable if there is none. */
+    public X get() throws InterpretationException {
+        var v = value();
+        return v != null ? v : missing();
+    }
+
+    private X missing() throws InterpretationException {
+        return declared ? new UninitializedGlobal(name).signal() : new UnboundVariable(name).signal();
+    }
+
+    /** Answer the value, or null if there is none. */
+    @SuppressWarnings("unchecked")
+    public X value() {
+        return (X) VALUE.getAcquire(this);
+    }
+
+    public boolean isDeclared() {
+        return declared;
+    }
+
+    /** True iff the cell has been declared and given a value. */
+    public boolean isInitialized() {
+        return declared && value() != null;
+    }
+
+    /** Make `value` what this undeclared cell's name means until it is declared. */
+    synchronized void provide(X value) {
+        if (!declared) {
+            VALUE.setRelease(this, value);
+        }
+    }
+
+    synchronized void declare() {
+        if (!declared) {
+            VALUE.setRelease(this, null);
+            declared = true;
+        }
+    }
+
+    synchronized void set(X value) {
+        if (!declared) {
+            throw new IllegalStateException("Attempted to set variable before declaring it: " + name);
+        }
+        VALUE.setRelease(this, value);
+    }
+
+    @Override
+    public String toString() {
+        return "#<GlobalCell " + name + ">";
+    }
+}
@@ -1,120 +1,259 @@
 package umlang;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 
 import immutable.List;
 import immutable.Maybe;
 import immutable.None;
 import immutable.Some;
-import immutable.ThrowingFunction;
 import syntax.AtomSymbol;
-import umlang.errors.InterpretationException;
-import umlang.errors.UserException;
+import syntax.TermReader;
+import umlang.ast.PrimOp;
+import umlang.value.HigherOrderPrim;
+import umlang.value.Prim1;
+import umlang.value.Prim2;
 import umlang.value.VBool;
-import umlang.value.VCell;
+import umlang.value.VMap;
 import umlang.value.VNum;
 import umlang.value.VPrim;
 import umlang.value.VStr;
+import umlang.value.VVec;
 import umlang.value.Value;
 
 public class GlobalEnvironment<X> {
     /**
-     * A name is either
-     * - missing: it has not been introduced at all.
-     * - bound to None: it has been declared, but its value is not yet ready.
-     * - bound to Some(v): it has been declared, and v is its value.
+     * The cell of every name that has been declared or linked to. See GlobalCell for their states, and
+     * for why several interpreters, on several threads, may share one GlobalEnvironment.
      */
-    private Map<AtomSymbol, Maybe<X>> globals = new HashMap<>();
+    private final ConcurrentHashMap<AtomSymbol, GlobalCell<X>> globals = new ConcurrentHashMap<>();
 
-    /** Retrieve a value matching `name`, if any. */
+    /** Answer the cell for `name`, creating an undeclared one if `name` has not been seen before. */
+    public GlobalCell<X> cell(AtomSymbol name) {
+        var cell = globals.get(name);
+        return cell != null ? cell : globals.computeIfAbsent(name, GlobalCell::new);
+    }
+
+    /**
+     * Retrieve the binding of `name`: None if it has not been declared, Some(None) if it has been
+     * declared but not yet initialized, and Some(Some(v)) if its value is v.
+     */
     public Maybe<Maybe<X>> lookup(AtomSymbol name) {
-        var binding = globals.get(name);
-        return binding == null ? new None<>() : new Some<>(binding);
+        var cell = globals.get(name);
+        if (cell == null || !cell.isDeclared()) {
+            return new None<>();
+        }
+        return new Some<>(cell.isInitialized() ? new Some<>(cell.value()) : new None<>());
+    }
+
+    /** True iff `name` has been declared, whether or not it has a value yet. */
+    public boolean isDeclared(AtomSymbol name) {
+        var cell = globals.get(name);
+        return cell != null && cell.isDeclared();
     }
 
     /** Declare a top-level/global variable `name`. Its value will come later. */
     public void declare(AtomSymbol name) {
-        if (!globals.containsKey(name)) {
-            globals.put(name, new None<>());
-        }
+        cell(name).declare();
     }
 
     /** Update a top-level/global variable `name` to be `value`. */
     public void set(AtomSymbol name, X value) {
-        if (!globals.containsKey(name)) {
+        var cell = globals.get(name);
+        if (cell == null) {
             throw new IllegalStateException("Attempted to set variable before declaring it: " + name);
         }
-        globals.put(name, new Some<>(value));
+        cell.set(value);
     }
 
-    /** Helper: constructs a VPrim and wraps it in an Entry ready for use in an Environment<Value>. See PRIM_ENV */
-    private static Entry<VPrim> prim(String name, int arity, ThrowingFunction<List<Value>, Value, InterpretationException> proc) {
-        return new Entry<>(new AtomSymbol(name), new VPrim(arity, proc));
+    /** Give the undeclared cell for `name` a provisional `value`; see GlobalCell. */
+    public void provide(AtomSymbol name, X value) {
+        cell(name).provide(value);
+    }
+
+    /** Helper: wraps a VPrim in an Entry ready for use in an Environment<Value>. See PRIM_ENV */
+    private static Entry<VPrim> prim(String name, VPrim prim) {
+        return new Entry<>(new AtomSymbol(name), prim);
+    }
+
+    /** Helper: as above, for the primitives that interpreters may also run directly as PrimOps. */
+    private static Entry<VPrim> prim(PrimOp.Kind kind) {
+        var prim = kind.arity() == 1 ? new VPrim((Prim1) kind::apply) : new VPrim((Prim2) kind::apply);
+        return prim(kind.symbol().label(), prim);
     }
 
     /** Primitives. */
     public static Environment<VPrim> PRIMITIVES = new Environment<>(List.of(
         // + : Any Any -> Number
         // Adds the two numbers. SAFETY: errors if it gets non-numbers.
-        prim("+", 2, (vs) -> new VNum(vs.get(0).asNum() + vs.get(1).asNum())),
+        prim(PrimOp.Kind.ADD),
 
         // - : Any Any -> Number
         // Subtracts the two numbers. SAFETY: errors if it gets non-numbers.
-        prim("-", 2, (vs) -> new VNum(vs.get(0).asNum() - vs.get(1).asNum())),
+        prim(PrimOp.Kind.SUBTRACT),
 
         // * : Any Any -> Number
         // Multiplies the two numbers. SAFETY: errors if it gets non-numbers.
-        prim("*", 2, (vs) -> new VNum(vs.get(0).asNum() * vs.get(1).asNum())),
+        prim(PrimOp.Kind.MULTIPLY),
 
         // / : Any Any -> Number
         // Divides the two numbers. SAFETY: errors if it gets non-numbers, or denominator is zero
-        prim("/", 2, (vs) -> {
-            var denominator = vs.get(1).asNum();
-            if (denominator == 0) throw new InterpretationException(new UserException(new VStr("division-by-zero")));
-            return new VNum(vs.get(0).asNum() / denominator);
-        }),
+        prim(PrimOp.Kind.DIVIDE),
 
         // = : Any Any -> Bool
         // Answers #t iff the arguments are equal to one another.
-        prim("=", 2, (vs) -> {
-            var a = vs.get(0);
-            var b = vs.get(1);
-            return new VBool(a.isStructuralEquivalenceAppropriate() && b.isStructuralEquivalenceAppropriate() && a.equals(b));
-        }),
+        prim(PrimOp.Kind.EQUAL),
 
         //----------------------------------------------------------------
         // I/O
 
         // display : Any -> 0
-        prim("display", 1, (vs) -> {
-            System.out.print(vs.get(0).toDisplayableString());
-            return new VNum(0);
-        }),
+        prim("display", new VPrim((v) -> {
+            System.out.print(v.toDisplayableString());
+            return VNum.of(0);
+        })),
         // newline : -> 0
-        prim("newline", 0, (vs) -> {
+        prim("newline", new VPrim(() -> {
             System.out.print("\n");
-            return new VNum(0);
-        }),
+            return VNum.of(0);
+        })),
 
         //----------------------------------------------------------------
         // Cells
 
         // cell : Any -> Cell
         // Allocate a fresh cell.
-        prim("cell", 1, (vs) -> new VCell(vs.get(0))),
+        prim(PrimOp.Kind.CELL),
 
         // get : Any -> Any
         // Extract the current value of the cell in the first argument. SAFETY: errors if it gets a non-cell.
-        prim("get", 1, (vs) -> vs.get(0).asCell().contents()),
+        prim(PrimOp.Kind.GET),
 
         // set : Any Any -> Any
         // Update the current value of the cell in the first argument. Return the old value. SAFETY: errors if it gets a non-cell.
-        prim("set", 2, (vs) -> {
-            var c = vs.get(0).asCell();
-            var oldValue = c.contents();
-            c.setContents(vs.get(1));
-            return oldValue;
-        })
+        prim(PrimOp.Kind.SET),
+
+        //----------------------------------------------------------------
+        // Strings: see VStr
+
+        // string-append : Any Any -> String
+        // Concatenates the two strings, in time logarithmic in their lengths. SAFETY: errors if it gets non-strings.
+        prim("string-append", new VPrim((a, b) -> a.asStr().concat(b.asStr()))),
+
+        // substring : Any Any Any -> String
+        // Extracts the characters of the string from the first index up to but not including the second. SAFETY:
+        // errors if it gets a non-string, or bad indices.
+        prim("substring", new VPrim((s, start, end) -> s.asStr().substring(start.asNum(), end.asNum()))),
+
+        // string-length : Any -> Number
+        // SAFETY: errors if it gets a non-string.
+        prim("string-length", new VPrim((s) -> VNum.of(s.asStr().length()))),
+
+        // string-ref : Any Any -> String
+        // Extracts the one-character string at the index. SAFETY: errors if it gets a non-string or a bad index.
+        prim("string-ref", new VPrim((s, i) -> s.asStr().charAt(i.asNum()))),
+
+        // number->string : Any -> String
+        // Renders the number as `display` does. SAFETY: errors if it gets a non-number.
+        prim("number->string", new VPrim((n) -> new VStr(VNum.of(n.asNum()).toDisplayableString()))),
+
+        // string->number : Any -> Any
+        // Answers the number the string spells, as a number literal would, or #f if it spells none. SAFETY: errors if
+        // it gets a non-string.
+        prim("string->number", new VPrim((s) ->
+            TermReader.parseNumber(s.asStr().value()) instanceof Some<Double>(var n) ? VNum.of(n) : VBool.of(false))),
+
+        // string-join : Any Any -> String
+        // Concatenates the strings in the vector, with the second argument between each. SAFETY: errors if it gets a
+        // non-vector, non-strings in it, or a non-string separator.
+        prim("string-join", new VPrim((v, separator) -> {
+            var out = new StringJoiner(separator.asStr().value());
+            for (var e : v.asVec().toArray()) {
+                out.add(e.asStr().value());
+            }
+            return new VStr(out.toString());
+        })),
+
+        //----------------------------------------------------------------
+        // Vectors
+
+        // make-vector : Any Any -> Vector
+        // Allocate a fresh vector of the first argument's number of elements, each the second. SAFETY: errors
+        // unless the size is a whole number.
+        prim("make-vector", new VPrim((n, init) -> VVec.make(n.asNum(), init))),
+
+        // vector-ref : Any Any -> Any
+        // Extract the element of the vector at the index. SAFETY: errors if it gets a non-vector or a bad index.
+        prim("vector-ref", new VPrim((v, i) -> v.asVec().ref(i.asNum()))),
+
+        // vector-set! : Any Any Any -> Any
+        // Update the element of the vector at the index. Return the old value. SAFETY: errors if it gets a
+        // non-vector or a bad index.
+        prim("vector-set!", new VPrim((v, i, x) -> v.asVec().set(i.asNum(), x))),
+
+        // vector-length : Any -> Number
+        // SAFETY: errors if it gets a non-vector.
+        prim("vector-length", new VPrim((v) -> VNum.of(v.asVec().length()))),
+
+        // vector-copy : Any -> Vector
+        // Allocate a fresh vector with the same elements. SAFETY: errors if it gets a non-vector.
+        prim("vector-copy", new VPrim((v) -> v.asVec().copy())),
+
+        // vector-sort! : Any -> 0
+        // Sort the vector of numbers in place, into ascending order. SAFETY: errors if it gets a non-vector, or
+        // the vector holds a non-number.
+        prim("vector-sort!", new VPrim((v) -> {
+            v.asVec().sort();
+            return VNum.of(0);
+        })),
+
+        //----------------------------------------------------------------
+        // Maps: see VMap for which keys are the same
+
+        // make-map : -> Map
+        // Allocate a fresh, empty map.
+        prim("make-map", new VPrim(() -> new VMap())),
+
+        // map-get : Any Any Any -> Any
+        // Extract the value of the key in the map, or the third argument if it has none. SAFETY: errors if it gets a non-map.
+        prim("map-get", new VPrim((m, key, absent) -> {
+            var v = m.asMap().get(key);
+            return v == null ? absent : v;
+        })),
+
+        // map-put! : Any Any Any -> 0
+        // Update the value of the key in the map. SAFETY: errors if it gets a non-map.
+        prim("map-put!", new VPrim((m, key, v) -> {
+            m.asMap().put(key, v);
+            return VNum.of(0);
+        })),
+
+        // map-remove! : Any Any -> Bool
+        // Remove the key from the map, answering whether it had a value. SAFETY: errors if it gets a non-map.
+        prim("map-remove!", new VPrim((m, key) -> VBool.of(m.asMap().remove(key) != null))),
+
+        // map-size : Any -> Number
+        // SAFETY: errors if it gets a non-map.
+        prim("map-size", new VPrim((m) -> VNum.of(m.asMap().size()))),
+
+        // map-keys : Any -> Vector
+        // Allocate a fresh vector of the map's keys, in no particular order. SAFETY: errors if it gets a non-map.
+        prim("map-keys", new VPrim((m) -> new VVec(m.asMap().keys()))),
+
+        //----------------------------------------------------------------
+        // Parallelism: see Parallel
+
+        // pmap : Fn Any -> Vector
+        // Answers a fresh vector of the function's values on each element of the vector, computed in parallel.
+        prim("pmap", new VPrim(2, (HigherOrderPrim) Parallel::map)),
+
+        // pfor-range : Number Number Fn -> 0
+        // Calls the function with each integer from the first argument up to but not including the second, in parallel.
+        prim("pfor-range", new VPrim(3, (HigherOrderPrim) Parallel::forRange)),
+
+        // preduce : Number Number Fn Fn Any -> Any
+        // Combines the function's values on each integer from the first argument up to but not including the second,
+        // in parallel, with the associative fourth argument, whose identity is the fifth.
+        prim("preduce", new VPrim(5, (HigherOrderPrim) Parallel::reduce))
     ));
 }
@@ -4,6 +4,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.concurrent.ForkJoinPool;
 
 import immutable.List;
 import immutable.Maybe;
@@ -12,25 +13,36 @@ import immutable.Some;
 import syntax.AtomSymbol;
 import syntax.Term;
 import syntax.TermReader;
+import umlang.bytecode.BytecodeInterpreter;
 import umlang.ast.Definition;
 import umlang.ast.Exp;
 import umlang.ast.ParseError;
 import umlang.ast.Parser;
+import umlang.ast.Resolver;
 import umlang.ast.ToplevelClause;
 import umlang.errors.InterpretationException;
-import umlang.errors.UnboundVariable;
-import umlang.errors.UninitializedGlobal;
+import umlang.node.NodeInterpreter;
+import umlang.opt.Optimizer;
+import umlang.value.Caller;
+import umlang.value.VPrim;
 import umlang.value.Value;
+import umlang.vm.RegisterVM;
 import umlang.vm.VM;
 
 /** An Interpreter is a self-contained interpreter for umlang `Exp`s. */
-public abstract class Interpreter {
+public abstract class Interpreter implements Caller {
     private final GlobalEnvironment<Value> _globals;
+    private Optimizer optimizer = null;
+    private ForkJoinPool parallelism = null;
 
     public Interpreter() {
         this._globals = new GlobalEnvironment<>();
     }
 
+    /**
+     * An Interpreter whose globals are `globals`. Interpreters on different threads may share one
+     * GlobalEnvironment, such as one with a prelude loaded; each Interpreter itself is for one thread at a time.
+     */
     public Interpreter(GlobalEnvironment<Value> globals) {
         this._globals = globals;
     }
@@ -39,12 +51,56 @@ public abstract class Interpreter {
         return _globals;
     }
 
+    /** Answer the Optimizer evaluateProgram runs each clause through, or null if it does not optimize. */
+    public Optimizer optimizer() {
+        return optimizer;
+    }
+
+    /** Make evaluateProgram run each clause through `optimizer`, or, if it is null, not optimize at all. */
+    public void setOptimizer(Optimizer optimizer) {
+        this.optimizer = optimizer;
+    }
+
+    /** Answer the pool evaluateProgram runs independent clauses on in parallel, or null if it runs them one at a time. */
+    public ForkJoinPool parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Make evaluateProgram run the clauses of a program that cannot affect one another in parallel on
+     * `pool` (see DefinitionGraph), or, if it is null, run every clause in turn.
+     */
+    public void setParallelism(ForkJoinPool pool) {
+        this.parallelism = pool;
+    }
+
+    /**
+     * Answer a new Interpreter of the same kind as this one, sharing its globals, to use on another
+     * thread. It has no Optimizer or parallelism of its own.
+     */
+    @Override
+    public abstract Interpreter fork();
+
+    /** Call the function value `fn` with `args`, signalling ExpectedFn if it is not one. */
+    @Override
+    public abstract Value apply(Value fn, Value[] args) throws InterpretationException;
+
+    /**
+     * Compute the result of `exp`, which must already have been through `Resolver.resolve`, with its
+     * `LocalRef`s addressing `env`, its `GlobalRef`s linked to cells of `globals`, and any remaining `Ref`s
+     * looked up in `globals` and `GlobalEnvironment.PRIMITIVES`.
+     */
+    public abstract Value evaluate(Exp exp, Frame env) throws InterpretationException;
+
     /** Compute the result of `exp` in the lexical environment `env`, extended with `globals` and `GlobalEnvironment.PRIMITIVES`. */
-    public abstract Value evaluate(Exp exp, Environment<Value> env) throws InterpretationException;
+    public Value evaluate(Exp exp, Environment<Value> env) throws InterpretationException {
+        var names = env.entries().map(Entry::name);
+        return evaluate(Resolver.resolve(exp, List.of(names), this::link), Frame.EMPTY.extend(env.entries().map(Entry::value)));
+    }
 
     /** Compute the result of `exp` in an empty lexical environment, extended with `globals` and `GlobalEnvironment.PRIMITIVES`. */
     public Value evaluate(Exp exp) throws InterpretationException {
-        return evaluate(exp, new Environment<>());
+        return evaluate(Resolver.resolve(exp, List.empty(), this::link), Frame.EMPTY);
     }
 
     /** Parse the string into a single `Exp`, then evaluate the result. */
@@ -59,12 +115,53 @@ public abstract class Interpreter {
     }
 
     /** Evaluate a method call. */
-    public abstract Value callMethod(Value receiver, AtomSymbol selector, List<Value> arguments) throws InterpretationException;
+    public abstract Value callMethod(Value receiver, AtomSymbol selector, Value... arguments) throws InterpretationException;
+
+    /** As callMethod(Value, AtomSymbol, Value...), with the `arguments` as a List. */
+    public Value callMethod(Value receiver, AtomSymbol selector, List<Value> arguments) throws InterpretationException {
+        var args = new Value[arguments.length()];
+        var i = 0;
+        for (var a : arguments) {
+            args[i++] = a;
+        }
+        return callMethod(receiver, selector, args);
+    }
 
-    /** Retrieve a fresh "default" interpreter instance */
+    /** Answer the argument array of a call of a method on `receiver` with `arguments`: the receiver, then those. */
+    protected static Value[] withReceiver(Value receiver, Value[] arguments) {
+        var args = new Value[arguments.length + 1];
+        args[0] = receiver;
+        System.arraycopy(arguments, 0, args, 1, arguments.length);
+        return args;
+    }
+
+    /**
+     * Retrieve a fresh "default" interpreter instance. The environment variable UMLANG_VM selects which:
+     * "1" for the VM, "2" for the BytecodeInterpreter, "3" for the NodeInterpreter, "4" for the RegisterVM,
+     * and anything else for the RecursiveInterpreter. Setting UMLANG_OPT to "1" gives it an Optimizer, and
+     * setting UMLANG_PARALLEL to "1" has it evaluate programs in parallel on the common ForkJoinPool.
+     */
     public static Interpreter newDefault() {
+        return newDefault(new GlobalEnvironment<>());
+    }
+
+    /** As newDefault(), but with `globals`, which may be shared with other interpreters. */
+    public static Interpreter newDefault(GlobalEnvironment<Value> globals) {
         var override = System.getenv("UMLANG_VM");
-        return (override != null && override.equals("1")) ? new VM() : new RecursiveInterpreter();
+        Interpreter interpreter = switch (override == null ? "" : override) {
+            case "1" -> new VM(globals);
+            case "2" -> new BytecodeInterpreter(globals);
+            case "3" -> new NodeInterpreter(globals);
+            case "4" -> new RegisterVM(globals);
+            default -> new RecursiveInterpreter(globals);
+        };
+        if ("1".equals(System.getenv("UMLANG_OPT"))) {
+            interpreter.setOptimizer(new Optimizer());
+        }
+        if ("1".equals(System.getenv("UMLANG_PARALLEL"))) {
+            interpreter.setParallelism(ForkJoinPool.commonPool());
+        }
+        return interpreter;
     }
 
     /** Parse `sourceCode` into a list of ToplevelClause, then call evaluateProgram on that list. */
@@ -84,7 +181,10 @@ public abstract class Interpreter {
         }
     }
 
-    /** Declare all definitions, then run all definitions and/or expressions in `program`, one after the other. */
+    /**
+     * Declare all definitions, then run all definitions and/or expressions in `program`, one after the other,
+     * or, given a `parallelism`, as if one after the other.
+     */
     public Maybe<Value> evaluateProgram(List<ToplevelClause> program) throws InterpretationException {
         // First declare all definitions.
         for (var c : program) {
@@ -92,27 +192,50 @@ public abstract class Interpreter {
                 _globals.declare(def.name());
             }
         }
+        if (parallelism != null) {
+            return new DefinitionGraph(this, program).evaluate(parallelism);
+        }
 
         // Then execute everything.
         Maybe<Value> result = new None<>();
         for (var c : program) {
             switch (c) {
                 case Definition(var name, var initializer) -> {
-                    _globals.set(name, evaluate(initializer));
+                    _globals.set(name, evaluateClause(initializer));
                     result = new None<>();
                 }
-                case Exp e -> result = new Some<>(evaluate(e));
+                case Exp e -> result = new Some<>(evaluateClause(e));
             }
         }
 
         return result;
     }
 
-    /** Look up `name` in `env`; if it is absent, look in `globals`; if absent there too, look in `GlobalEnvironment.PRIMITIVES`. */
-    protected Value lookup(AtomSymbol name, Environment<Value> env) throws InterpretationException {
-        return env.lookup(name)
-            .orElse(() -> _globals.lookup(name).map((maybeValue) -> maybeValue.valueOr(() -> new UninitializedGlobal(name).signal())))
-            .orElse(() -> GlobalEnvironment.PRIMITIVES.lookup(name))
-            .valueOr(() -> new UnboundVariable(name).signal());
+    /** As evaluate(Exp), but running `exp` through the `optimizer` first, if there is one. */
+    private Value evaluateClause(Exp exp) throws InterpretationException {
+        return evaluate(prepare(exp), Frame.EMPTY);
+    }
+
+    /** Resolve top-level `exp` against an empty lexical environment, and optimize it if there is an `optimizer`. */
+    protected Exp prepare(Exp exp) {
+        var resolved = Resolver.resolve(exp, List.empty(), this::link);
+        return optimizer == null ? resolved : optimizer.optimize(resolved);
+    }
+
+    /** Look up non-local `name` in `globals`; if absent there, look in `GlobalEnvironment.PRIMITIVES`. */
+    protected Value lookup(AtomSymbol name) throws InterpretationException {
+        return link(name).get();
+    }
+
+    /**
+     * Answer the GlobalCell for `name` in `globals`. If `name` is not declared, the cell is provisionally
+     * given the primitive of that name, if there is one.
+     */
+    public GlobalCell<Value> link(AtomSymbol name) {
+        var cell = _globals.cell(name);
+        if (!cell.isDeclared() && cell.value() == null && GlobalEnvironment.PRIMITIVES.lookup(name) instanceof Some<VPrim>(var prim)) {
+            _globals.provide(name, prim);
+        }
+        return cell;
     }
 }
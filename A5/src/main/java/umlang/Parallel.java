@@ -0,0 +1,172 @@
+package umlang;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import umlang.errors.InterpretationException;
+import umlang.value.Caller;
+import umlang.value.VNum;
+import umlang.value.VVec;
+import umlang.value.Value;
+
+/**
+ * Parallel holds the data-parallel primitives of GlobalEnvironment.PRIMITIVES. Each splits a range of
+ * integers, or of a vector's indices, into chunks and runs them as fork-join tasks on the common
+ * ForkJoinPool. Every worker thread calls the primitive's function arguments through a `fork` of the
+ * Caller it was given, so no interpreter is used by two threads at once. The functions are called in
+ * no particular order, and any state they share, such as a cell, must be left alone or tolerate races.
+ *
+ * An error signalled by any call is signalled by the primitive; which one, if several fail, is unspecified.
+ */
+final class Parallel {
+    /** Ranges are split into about this many chunks per worker, to balance uneven work. */
+    private static final int CHUNKS_PER_WORKER = 8;
+
+    private Parallel() {}
+
+    /** {pfor-range lo hi f}: call {f i} for each integer i from `lo` up to but not including `hi`, answering 0. */
+    static Value forRange(Caller caller, Value[] args) throws InterpretationException {
+        var lo = args[0].asNum();
+        var hi = args[1].asNum();
+        var f = args[2];
+        new Range(caller, count(lo, hi)) {
+            @Override
+            Value leaf(Caller worker, long start, long end) throws InterpretationException {
+                for (var k = start; k < end; k++) {
+                    worker.apply(f, new Value[] { VNum.of(lo + k) });
+                }
+                return null;
+            }
+
+            @Override
+            Value combine(Caller worker, Value left, Value right) {
+                return null;
+            }
+        }.run();
+        return VNum.of(0);
+    }
+
+    /** {pmap f v}: answer a new vector of {f e} for each element e of the vector `v`, at the same index. */
+    static Value map(Caller caller, Value[] args) throws InterpretationException {
+        var f = args[0];
+        var elements = args[1].asVec().toArray();
+        var results = new Value[elements.length];
+        new Range(caller, elements.length) {
+            @Override
+            Value leaf(Caller worker, long start, long end) throws InterpretationException {
+                for (var k = (int) start; k < end; k++) {
+                    results[k] = worker.apply(f, new Value[] { elements[k] });
+                }
+                return null;
+            }
+
+            @Override
+            Value combine(Caller worker, Value left, Value right) {
+                return null;
+            }
+        }.run();
+        return new VVec(results);
+    }
+
+    /**
+     * {preduce lo hi f combine identity}: combine the values of {f i} for each integer i from `lo` up to but not
+     * including `hi`, in order, with the associative function `combine`, whose identity is `identity`.
+     */
+    static Value reduce(Caller caller, Value[] args) throws InterpretationException {
+        var lo = args[0].asNum();
+        var hi = args[1].asNum();
+        var f = args[2];
+        var combine = args[3];
+        var identity = args[4];
+        var n = count(lo, hi);
+        if (n == 0) {
+            return identity;
+        }
+        return new Range(caller, n) {
+            @Override
+            Value leaf(Caller worker, long start, long end) throws InterpretationException {
+                var acc = identity;
+                for (var k = start; k < end; k++) {
+                    acc = worker.apply(combine, new Value[] { acc, worker.apply(f, new Value[] { VNum.of(lo + k) }) });
+                }
+                return acc;
+            }
+
+            @Override
+            Value combine(Caller worker, Value left, Value right) throws InterpretationException {
+                return worker.apply(combine, new Value[] { left, right });
+            }
+        }.run();
+    }
+
+    /** The number of integers from `lo` up to but not including `hi`. */
+    private static long count(double lo, double hi) {
+        return hi > lo ? (long) Math.ceil(hi - lo) : 0;
+    }
+
+    /** A Range is a fork-join computation over the indices 0 to `n`, split into chunks. */
+    private abstract static class Range {
+        private final Caller caller;
+        private final ConcurrentHashMap<Thread, Caller> workers = new ConcurrentHashMap<>();
+        private final long grain;
+        private final long n;
+
+        Range(Caller caller, long n) {
+            this.caller = caller;
+            this.n = n;
+            this.grain = Math.max(1, n / ((long) ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_WORKER));
+        }
+
+        /** Answer the result for the indices from `start` up to `end`, calling functions through `worker`. */
+        abstract Value leaf(Caller worker, long start, long end) throws InterpretationException;
+
+        /** Answer the result for two adjacent chunks, given theirs. */
+        abstract Value combine(Caller worker, Value left, Value right) throws InterpretationException;
+
+        Value run() throws InterpretationException {
+            try {
+                return ForkJoinPool.commonPool().invoke(new Chunk(0, n));
+            } catch (RuntimeException e) {
+                // Fork-join may rethrow a copy of the exception from another thread, with the original as its cause.
+                for (Throwable t = e; t != null; t = t.getCause()) {
+                    if (t.getCause() instanceof InterpretationException ie) throw ie;
+                }
+                throw e;
+            }
+        }
+
+        private Caller worker() {
+            return workers.computeIfAbsent(Thread.currentThread(), (t) -> caller.fork());
+        }
+
+        private final class Chunk extends RecursiveTask<Value> {
+            private static final long serialVersionUID = 1L;
+
+            private final long start;
+            private final long end;
+
+            Chunk(long start, long end) {
+                this.start = start;
+                this.end = end;
+            }
+
+            @Override
+            protected Value compute() {
+                try {
+                    if (end - start <= grain) {
+                        return leaf(worker(), start, end);
+                    }
+                    var middle = start + (end - start) / 2;
+                    var left = new Chunk(start, middle);
+                    left.fork();
+                    var right = new Chunk(middle, end).compute();
+                    return combine(worker(), left.join(), right);
+                } catch (InterpretationException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        }
+    }
+}
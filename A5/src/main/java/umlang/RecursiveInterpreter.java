@@ -2,6 +2,7 @@ package umlang;
 
 import immutable.Cons;
 import immutable.List;
+import immutable.Nil;
 import syntax.AtomSymbol;
 import umlang.ast.Bool;
 import umlang.ast.Call;
@@ -10,66 +11,165 @@ import umlang.ast.Conditional;
 import umlang.ast.Exp;
 import umlang.ast.ExtendObj;
 import umlang.ast.Fn;
+import umlang.ast.GlobalRef;
 import umlang.ast.InertObj;
 import umlang.ast.Let;
+import umlang.ast.LocalRef;
 import umlang.ast.Num;
+import umlang.ast.PrimOp;
 import umlang.ast.Ref;
 import umlang.ast.Seq;
 import umlang.ast.Str;
 import umlang.ast.Throw;
 import umlang.ast.TryCatch;
+import umlang.errors.ExpectedFn;
 import umlang.errors.InterpretationException;
-import umlang.value.VBool;
+import umlang.jit.Jit;
 import umlang.value.VFn;
-import umlang.value.VNum;
 import umlang.value.VObj;
-import umlang.value.VStr;
+import umlang.value.VPrim;
 import umlang.value.Value;
 
 public class RecursiveInterpreter extends Interpreter {
+    private final Jit jit;
+
+    public RecursiveInterpreter() {
+        this(new GlobalEnvironment<>());
+    }
+
+    public RecursiveInterpreter(GlobalEnvironment<Value> globals) {
+        super(globals);
+        this.jit = new Jit(globals);
+    }
+
+    @Override
+    public Interpreter fork() {
+        return new RecursiveInterpreter(globals());
+    }
+
+    /**
+     * Evaluate `exp` in `env`. Subexpressions in tail position - the branches of a Conditional, the body
+     * of a Let, the last expression of a Seq, and the body of the function or method entered by a Call,
+     * PrimOp or CallMethod - are evaluated by looping rather than recursing, so tail calls run in
+     * constant Java stack. Everything else recurses directly.
+     */
     @Override
-    public Value evaluate(Exp exp, Environment<Value> env) throws InterpretationException {
-        return switch (exp) {
-            case Ref(var name) -> lookup(name, env);
-            case Num(var n) -> new VNum(n);
-            case Bool(var b) -> new VBool(b);
-            case Str(var s) -> new VStr(s);
-            case Conditional(var test, var ifTrue, var ifFalse) ->
-                evaluate(evaluate(test, env).isTruthy() ? ifTrue : ifFalse, env);
-            case Let(var names, var inits, var body) ->
-                evaluate(body, env.extend(names, inits.map((i) -> evaluate(i, env))));
-            case Fn(var formals, var body) -> new VFn(formals, body, env);
-            case Call(var fnExp, var args) ->
-                invoke(evaluate(fnExp, env), args.map((i) -> evaluate(i, env)));
-            case Seq(var exps) -> {
-                while (exps.rest() instanceof Cons<Exp> more) {
-                    evaluate(exps.first(), env);
-                    exps = more;
+    public Value evaluate(Exp exp, Frame env) throws InterpretationException {
+        while (true) {
+            switch (exp) {
+                case Ref(var name) -> {
+                    return lookup(name);
+                }
+                case GlobalRef(var name, var cell) -> {
+                    return cell.get();
+                }
+                case LocalRef(var name, var depth, var index) -> {
+                    return env.lookup(depth, index);
+                }
+                case Num n -> {
+                    return n.constant();
+                }
+                case Bool b -> {
+                    return b.constant();
+                }
+                case Str s -> {
+                    return s.constant();
+                }
+                case Conditional(var test, var ifTrue, var ifFalse) ->
+                    exp = evaluate(test, env).isTruthy() ? ifTrue : ifFalse;
+                case Let(var names, var inits, var body) -> {
+                    env = new Frame(evaluateAll(inits, env), env);
+                    exp = body;
                 }
-                yield evaluate(exps.first(), env);
+                case Fn(var formals, var body, var captures, var arity) -> {
+                    return new VFn(formals, body, env.capture(captures), arity);
+                }
+                case Call(var fnExp, var args) -> {
+                    var callee = evaluate(fnExp, env);
+                    var argValues = evaluateAll(args, env);
+                    if (!(callee instanceof VFn fn)) {
+                        return apply(callee, argValues);
+                    }
+                    if (jit.tryInvoke(fn, argValues) instanceof Value result) {
+                        return result;
+                    }
+                    env = fn.enter(argValues);
+                    exp = fn.body();
+                }
+                case PrimOp p -> {
+                    if (!p.cell().isDeclared()) {
+                        return primOp(p.kind(), p.args(), env);
+                    }
+                    exp = p.asCall();
+                }
+                case Seq(var exps) -> {
+                    while (exps.rest() instanceof Cons<Exp> more) {
+                        evaluate(exps.first(), env);
+                        exps = more;
+                    }
+                    exp = exps.first();
+                }
+                case InertObj() -> {
+                    return VObj.EMPTY;
+                }
+                case ExtendObj(var selector, var formals, var body, var base, var captures, var arity) -> {
+                    var baseObj = evaluate(base, env).asObj();
+                    var method = new VFn(new Cons<AtomSymbol>(new AtomSymbol("self"), formals), body, env.capture(captures), arity + 1);
+                    return baseObj.extend(selector, method);
+                }
+                case CallMethod(var objExp, var selector, var args, var cache) -> {
+                    var receiver = evaluate(objExp, env);
+                    var argValues = new Value[args.length() + 1];
+                    argValues[0] = receiver;
+                    var i = 1;
+                    for (var a : args) {
+                        argValues[i++] = evaluate(a, env);
+                    }
+                    var method = cache.lookup(receiver.asObj(), selector);
+                    env = method.enter(argValues);
+                    exp = method.body();
+                }
+                case Throw(var exnExp) ->
+                    throw new RuntimeException("UNIMPLEMENTED Throw in RecursiveInterpreter");
+                case TryCatch(var body, var exnVar, var handler) ->
+                    throw new RuntimeException("UNIMPLEMENTED TryCatch in RecursiveInterpreter");
             }
-            case InertObj() -> new VObj(new Environment<VFn>(List.empty()));
-            case ExtendObj(var selector, var formals, var body, var base) -> {
-                var baseObj = evaluate(base, env).asObj();
-                var method = new VFn(new Cons<AtomSymbol>(new AtomSymbol("self"), formals), body, env);
-                yield new VObj(baseObj.methods().extend(selector, method));
+        }
+    }
+
+    /** Evaluates a PrimOp whose name still denotes the primitive. */
+    private Value primOp(PrimOp.Kind kind, List<Exp> args, Frame env) throws InterpretationException {
+        return switch (args) {
+            case Cons(var a, Nil()) -> kind.apply(evaluate(a, env));
+            case Cons(var a, Cons(var b, Nil())) -> {
+                var x = evaluate(a, env);
+                yield kind.apply(x, evaluate(b, env));
             }
-            case CallMethod(var objExp, var selector, var args) ->
-                callMethod(evaluate(objExp, env), selector, args.map((i) -> evaluate(i, env)));
-            case Throw(var exnExp) ->
-                throw new RuntimeException("UNIMPLEMENTED Throw in RecursiveInterpreter");
-            case TryCatch(var body, var exnVar, var handler) ->
-                throw new RuntimeException("UNIMPLEMENTED TryCatch in RecursiveInterpreter");
+            default -> kind.apply(evaluateAll(args, env));
         };
     }
 
-    /** Invokes `callable` as a function with `argValues`. */
-    private Value invoke(Value callable, List<Value> argValues) throws InterpretationException {
-        return callable.invoke(argValues, this::evaluate, (result) -> result, (exn) -> { throw exn; });
+    /** Evaluates each of `exps` in `env`, left to right, directly into a fresh array. */
+    private Value[] evaluateAll(List<Exp> exps, Frame env) throws InterpretationException {
+        var values = new Value[exps.length()];
+        var i = 0;
+        for (var e : exps) {
+            values[i++] = evaluate(e, env);
+        }
+        return values;
+    }
+
+    @Override
+    public Value apply(Value callable, Value[] args) throws InterpretationException {
+        return switch (callable) {
+            case VFn fn -> jit.tryInvoke(fn, args) instanceof Value result ? result : evaluate(fn.body(), fn.enter(args));
+            case VPrim prim -> prim.call(this, args);
+            default -> new ExpectedFn(callable).signal();
+        };
     }
 
     @Override
-    public Value callMethod(Value receiver, AtomSymbol selector, List<Value> arguments) throws InterpretationException {
-        return invoke(receiver.asObj().lookup(selector), new Cons<>(receiver, arguments));
+    public Value callMethod(Value receiver, AtomSymbol selector, Value... arguments) throws InterpretationException {
+        return apply(receiver.asObj().lookup(selector), withReceiver(receiver, arguments));
     }
 }
\ No newline at end of file
@@ -1,6 +1,13 @@
 package umlang.ast;
 
+import umlang.value.VBool;
+
 /**
  * A Bool is a literal boolean expression.
  */
-public record Bool(boolean value) implements Exp {}
\ No newline at end of file
+public record Bool(boolean value) implements Exp {
+    /** The value of this literal: the canonical VBool, so evaluating it allocates nothing. */
+    public VBool constant() {
+        return VBool.of(value);
+    }
+}
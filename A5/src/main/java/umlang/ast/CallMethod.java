@@ -2,8 +2,14 @@ package umlang.ast;
 
 import immutable.List;
 import syntax.AtomSymbol;
+import umlang.value.InlineCache;
 
 /**
- * A CallMethod is a method call expression, invoking `selector` on `objExp` with `args`
+ * A CallMethod is a method call expression, invoking `selector` on `objExp` with `args`.
+ * `cache` is this call site's InlineCache; the convenience constructor supplies a fresh one.
  */
-public record CallMethod(Exp objExp, AtomSymbol selector, List<Exp> args) implements Exp {}
\ No newline at end of file
+public record CallMethod(Exp objExp, AtomSymbol selector, List<Exp> args, InlineCache cache) implements Exp {
+    public CallMethod(Exp objExp, AtomSymbol selector, List<Exp> args) {
+        this(objExp, selector, args, new InlineCache());
+    }
+}
@@ -13,6 +13,8 @@ import syntax.Term;
  */
 public sealed interface Exp extends ToplevelClause permits
     Ref,
+    LocalRef,
+    GlobalRef,
     Num,
     Bool,
     Str,
@@ -20,6 +22,7 @@ public sealed interface Exp extends ToplevelClause permits
     Let,
     Fn,
     Call,
+    PrimOp,
     Seq,
     InertObj,
     ExtendObj,
@@ -35,9 +38,11 @@ public sealed interface Exp extends ToplevelClause permits
     default Term unparseHelper(){
         return switch (this){
             case Ref(var name) -> name;
-            case Num(var n) -> new AtomNumber(n);
+            case LocalRef(var name, var depth, var index) -> name;
+            case GlobalRef(var name, var cell) -> name;
+            case Num n -> new AtomNumber(n.value());
             case Bool(var b) -> new AtomSymbol(b ? "#t" : "#f");
-            case Str(var s) -> new AtomString(s);
+            case Str s -> new AtomString(s.value());
             case Conditional(var test, var ifTrue, var ifFalse) ->
                 new Form(new AtomSymbol("if"), test.unparse(), ifTrue.unparse(), ifFalse.unparse());
             case Let(var names, var inits, var body) ->
@@ -45,14 +50,16 @@ public sealed interface Exp extends ToplevelClause permits
                     new AtomSymbol("let"),
                     new Form(List.map((n, i) -> new Form(n, i.unparse()), names, inits)),
                     body.unparse());
-            case Fn(var formals, var body) ->
+            case Fn(var formals, var body, var captures, var arity) ->
                 new Form(new AtomSymbol("fn"), new Form(formals), body.unparse());
             case Call(var fnExp, var args) ->
                 new Form(new Cons<>(fnExp.unparse(), args.<Term, RuntimeException>map(Exp::unparse)));
+            case PrimOp(var kind, var args, var cell) ->
+                new Form(new Cons<>(kind.symbol(), args.<Term, RuntimeException>map(Exp::unparse)));
             case Seq(var exps) ->
                 new Form(new Cons<>(new AtomSymbol("seq"), exps.<Term, RuntimeException>map(Exp::unparse)));
             case InertObj() -> new Form(new AtomSymbol("obj"));
-            case ExtendObj(var selector, var formals, var body, var base) -> 
+            case ExtendObj(var selector, var formals, var body, var base, var captures, var arity) -> 
                 new Form(
                         //new AtomSymbol("obj"),
                         new Form(selector, new Form(formals), body.unparse()),
@@ -60,7 +67,7 @@ public sealed interface Exp extends ToplevelClause permits
                         base.unparseHelper()
                     );
             
-            case CallMethod(var objExp, var selector, var args) ->
+            case CallMethod(var objExp, var selector, var args, var cache) ->
                 new Form(new Cons<>(objExp.unparse(), new Cons<>(selector, args.map(Exp::unparse))));
             case Throw(var exnExp) -> new Form(new AtomSymbol("throw"), exnExp.unparse());
             case TryCatch(var body, var exnVar, var handler) -> new Form(new AtomSymbol("catch"), body.unparse(), new Form(exnVar), handler.unparse());
@@ -71,9 +78,11 @@ public sealed interface Exp extends ToplevelClause permits
     default Term unparse() {
         return switch (this) {
             case Ref(var name) -> name;
-            case Num(var n) -> new AtomNumber(n);
+            case LocalRef(var name, var depth, var index) -> name;
+            case GlobalRef(var name, var cell) -> name;
+            case Num n -> new AtomNumber(n.value());
             case Bool(var b) -> new AtomSymbol(b ? "#t" : "#f");
-            case Str(var s) -> new AtomString(s);
+            case Str s -> new AtomString(s.value());
             case Conditional(var test, var ifTrue, var ifFalse) ->
                 new Form(new AtomSymbol("if"), test.unparse(), ifTrue.unparse(), ifFalse.unparse());
             case Let(var names, var inits, var body) ->
@@ -81,14 +90,16 @@ public sealed interface Exp extends ToplevelClause permits
                     new AtomSymbol("let"),
                     new Form(List.map((n, i) -> new Form(n, i.unparse()), names, inits)),
                     body.unparse());
-            case Fn(var formals, var body) ->
+            case Fn(var formals, var body, var captures, var arity) ->
                 new Form(new AtomSymbol("fn"), new Form(formals), body.unparse());
             case Call(var fnExp, var args) ->
                 new Form(new Cons<>(fnExp.unparse(), args.<Term, RuntimeException>map(Exp::unparse)));
+            case PrimOp(var kind, var args, var cell) ->
+                new Form(new Cons<>(kind.symbol(), args.<Term, RuntimeException>map(Exp::unparse)));
             case Seq(var exps) ->
                 new Form(new Cons<>(new AtomSymbol("seq"), exps.<Term, RuntimeException>map(Exp::unparse)));
             case InertObj() -> new Form(new AtomSymbol("obj"));
-            case ExtendObj(var selector, var formals, var body, var base) -> 
+            case ExtendObj(var selector, var formals, var body, var base, var captures, var arity) -> 
                 new Form(
                         new AtomSymbol("obj"),
                         new Form(selector, new Form(formals), body.unparse()),
@@ -96,7 +107,7 @@ public sealed interface Exp extends ToplevelClause permits
                         base.unparseHelper()
                     );
             
-            case CallMethod(var objExp, var selector, var args) ->
+            case CallMethod(var objExp, var selector, var args, var cache) ->
                 new Form(new Cons<>(objExp.unparse(), new Cons<>(selector, args.map(Exp::unparse))));
             case Throw(var exnExp) -> new Form(new AtomSymbol("throw"), exnExp.unparse());
             case TryCatch(var body, var exnVar, var handler) -> new Form(new AtomSymbol("catch"), body.unparse(), new Form(exnVar), handler.unparse());
@@ -5,5 +5,16 @@ import syntax.AtomSymbol;
 
 /**
  * An ExtendObj expression extends `base` with a new method responding to `selector`.
+ * `captures` and `arity` play the same roles as in `Fn`; the method itself takes one more argument, `self`.
  */
-public record ExtendObj(AtomSymbol selector, List<AtomSymbol> formals, Exp body, Exp base) implements Exp {}
\ No newline at end of file
+public record ExtendObj(AtomSymbol selector, List<AtomSymbol> formals, Exp body, Exp base, List<LocalRef> captures, int arity)
+        implements Exp {
+    public ExtendObj(AtomSymbol selector, List<AtomSymbol> formals, Exp body, Exp base, List<LocalRef> captures) {
+        this(selector, formals, body, base, captures, formals.length());
+    }
+
+    /** Convenience constructor for an ExtendObj that has not yet been resolved. */
+    public ExtendObj(AtomSymbol selector, List<AtomSymbol> formals, Exp body, Exp base) {
+        this(selector, formals, body, base, List.empty());
+    }
+}
@@ -5,5 +5,17 @@ import syntax.AtomSymbol;
 
 /**
  * A Fn is a function expression (like lambda in Racket).
+ * `captures` addresses, in the enclosing scope, each free variable of `body`; the resulting closure
+ * holds only those values. It is filled in by the Resolver, and is empty straight out of the Parser.
+ * `arity` is the length of `formals`, computed once here rather than for every closure made.
  */
-public record Fn(List<AtomSymbol> formals, Exp body) implements Exp {}
\ No newline at end of file
+public record Fn(List<AtomSymbol> formals, Exp body, List<LocalRef> captures, int arity) implements Exp {
+    public Fn(List<AtomSymbol> formals, Exp body, List<LocalRef> captures) {
+        this(formals, body, captures, formals.length());
+    }
+
+    /** Convenience constructor for a Fn that has not yet been resolved. */
+    public Fn(List<AtomSymbol> formals, Exp body) {
+        this(formals, body, List.empty());
+    }
+}
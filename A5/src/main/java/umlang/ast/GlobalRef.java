@@ -0,0 +1,11 @@
+package umlang.ast;
+
+import syntax.AtomSymbol;
+import umlang.GlobalCell;
+import umlang.value.Value;
+
+/**
+ * A GlobalRef is a reference to global (or primitive) `name` that has been linked directly to its
+ * GlobalCell by `Resolver.resolve`.
+ */
+public record GlobalRef(AtomSymbol name, GlobalCell<Value> cell) implements Exp {}
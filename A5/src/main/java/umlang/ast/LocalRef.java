@@ -0,0 +1,10 @@
+package umlang.ast;
+
+import syntax.AtomSymbol;
+
+/**
+ * A LocalRef is a Ref that the Resolver has proven to be lexically bound.
+ * Its value lives in slot `index` of the Frame `depth` links up from the current one.
+ * `name` is retained only for unparsing and debugging.
+ */
+public record LocalRef(AtomSymbol name, int depth, int index) implements Exp {}
@@ -1,6 +1,13 @@
 package umlang.ast;
 
+import umlang.value.VNum;
+
 /**
- * A Num is a literal number expression.
+ * A Num is a literal number expression. `constant` is its value, built once so that evaluating the
+ * literal allocates nothing.
  */
-public record Num(double value) implements Exp {}
\ No newline at end of file
+public record Num(double value, VNum constant) implements Exp {
+    public Num(double value) {
+        this(value, VNum.of(value));
+    }
+}
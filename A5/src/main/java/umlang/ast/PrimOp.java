@@ -0,0 +1,97 @@
+package umlang.ast;
+
+import immutable.List;
+import syntax.AtomSymbol;
+import umlang.GlobalCell;
+import umlang.errors.BadArgumentCount;
+import umlang.errors.InterpretationException;
+import umlang.errors.UserException;
+import umlang.value.VBool;
+import umlang.value.VCell;
+import umlang.value.VNum;
+import umlang.value.VStr;
+import umlang.value.Value;
+
+/**
+ * A PrimOp is a call, with exactly the right number of `args`, of the primitive `kind` through its global
+ * name. `Resolver.resolve` produces these from `Call`s when linking; `cell` is the GlobalCell of the name.
+ * While the name remains undeclared it still denotes the primitive, and interpreters run `kind` directly.
+ * If the name is ever declared as a global, a PrimOp behaves as the `Call` it came from.
+ */
+public record PrimOp(Kind kind, List<Exp> args, GlobalCell<Value> cell) implements Exp {
+    /** Answer the `Call` this PrimOp stands for. */
+    public Call asCall() {
+        return new Call(new GlobalRef(kind.symbol(), cell), args);
+    }
+
+    /** The primitives that get PrimOps. See `GlobalEnvironment.PRIMITIVES`, which is defined in terms of these. */
+    public enum Kind {
+        ADD("+", 2), SUBTRACT("-", 2), MULTIPLY("*", 2), DIVIDE("/", 2), EQUAL("=", 2),
+        CELL("cell", 1), GET("get", 1), SET("set", 2);
+
+        private final AtomSymbol symbol;
+        private final int arity;
+
+        Kind(String label, int arity) {
+            this.symbol = new AtomSymbol(label);
+            this.arity = arity;
+        }
+
+        public AtomSymbol symbol() {
+            return symbol;
+        }
+
+        public int arity() {
+            return arity;
+        }
+
+        /** Answer the Kind named `name`, or null if there is none. */
+        public static Kind named(AtomSymbol name) {
+            for (var k : values()) {
+                if (k.symbol.equals(name)) return k;
+            }
+            return null;
+        }
+
+        /** Apply a one-argument primitive to `a`. */
+        public Value apply(Value a) throws InterpretationException {
+            return switch (this) {
+                case CELL -> new VCell(a);
+                case GET -> a.asCell().contents();
+                default -> new BadArgumentCount(arity, 1).signal();
+            };
+        }
+
+        /** Apply a two-argument primitive to `a` and `b`. */
+        public Value apply(Value a, Value b) throws InterpretationException {
+            return switch (this) {
+                case ADD -> VNum.of(a.asNum() + b.asNum());
+                case SUBTRACT -> VNum.of(a.asNum() - b.asNum());
+                case MULTIPLY -> VNum.of(a.asNum() * b.asNum());
+                case DIVIDE -> VNum.of(divide(a.asNum(), b.asNum()));
+                case EQUAL -> VBool.of(a.isEqualTo(b));
+                case SET -> {
+                    var c = a.asCell();
+                    var oldValue = c.contents();
+                    c.setContents(b);
+                    yield oldValue;
+                }
+                default -> new BadArgumentCount(arity, 2).signal();
+            };
+        }
+
+        /** Divide `a` by `b` as `/` does, throwing the user exception "division-by-zero" if `b` is zero. */
+        public static double divide(double a, double b) throws InterpretationException {
+            if (b == 0) throw new InterpretationException(new UserException(new VStr("division-by-zero")));
+            return a / b;
+        }
+
+        /** Apply the primitive to `args`, signalling BadArgumentCount if there are the wrong number. */
+        public Value apply(Value[] args) throws InterpretationException {
+            if (args.length != arity) {
+                new BadArgumentCount(arity, args.length).signal();
+            }
+            return arity == 1 ? apply(args[0]) : apply(args[0], args[1]);
+        }
+    }
+}
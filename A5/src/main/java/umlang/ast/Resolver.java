@@ -0,0 +1,154 @@
+package umlang.ast;
+
+import java.util.ArrayList;
+import java.util.function.Function;
+
+import immutable.Cons;
+import immutable.List;
+import syntax.AtomSymbol;
+import umlang.GlobalCell;
+import umlang.value.Value;
+
+/**
+ * Resolver only exists to hold the static method `resolve`.
+ *
+ * It runs between `Parser.parse` and evaluation, rewriting each lexically-bound `Ref` into a `LocalRef`
+ * carrying its (frame depth, slot index) address. Other `Ref`s refer to globals or primitives; given a
+ * linker, it rewrites those into `GlobalRef`s bound to their GlobalCells, and otherwise leaves them be.
+ * When linking, it also lowers calls of still-undeclared primitive names into `PrimOp`s.
+ * The frame layout it assumes is:
+ * - a `Let` binds one frame holding its `names`, in order;
+ * - a `Fn` binds one frame holding its `formals`, in order;
+ * - an `ExtendObj` method binds one frame holding `self` followed by its `formals`;
+ * - a `TryCatch` handler binds one frame holding `exnVar`.
+ *
+ * It also performs free-variable analysis. Closures are flat: the parent of a `Fn` or method's formals
+ * frame is a frame holding just its free variables, which the Resolver lists in `captures`.
+ */
+public class Resolver {
+    private static final AtomSymbol SELF = new AtomSymbol("self");
+
+    /**
+     * A FnScope describes the function body (or toplevel expression) being resolved.
+     * `enclosing` is the FnScope the function was created in, and `enclosingFrames` the frames that
+     * were visible at that point. `captureNames` and `captureSources` accumulate its free variables
+     * and their addresses in the enclosing scope. The toplevel FnScope has no `enclosing`.
+     * `linker`, if not null, answers the GlobalCell for a global name.
+     */
+    private record FnScope(
+        FnScope enclosing,
+        List<List<AtomSymbol>> enclosingFrames,
+        ArrayList<AtomSymbol> captureNames,
+        ArrayList<LocalRef> captureSources,
+        Function<AtomSymbol, GlobalCell<Value>> linker
+    ) {
+        FnScope(FnScope enclosing, List<List<AtomSymbol>> enclosingFrames) {
+            this(enclosing, enclosingFrames, new ArrayList<>(), new ArrayList<>(), enclosing.linker());
+        }
+
+        /** Answer the Exp for a reference to the global `name`. */
+        Exp global(AtomSymbol name) {
+            return linker == null ? new Ref(name) : new GlobalRef(name, linker.apply(name));
+        }
+    }
+
+    /** Resolve `exp` for evaluation outside of any lexical scope. */
+    public static Exp resolve(Exp exp) {
+        return resolve(exp, List.empty());
+    }
+
+    /** Resolve `exp` in `scope`: the names bound by each enclosing frame, innermost first. */
+    public static Exp resolve(Exp exp, List<List<AtomSymbol>> scope) {
+        return resolve(exp, scope, (Function<AtomSymbol, GlobalCell<Value>>) null);
+    }
+
+    /** Resolve `exp` in `scope`, linking references to globals through `linker`. */
+    public static Exp resolve(Exp exp, List<List<AtomSymbol>> scope, Function<AtomSymbol, GlobalCell<Value>> linker) {
+        return resolve(exp, scope, new FnScope(null, List.empty(), new ArrayList<>(), new ArrayList<>(), linker));
+    }
+
+    /** Resolve `exp` in `frames`, the frames bound so far within the function described by `fn`. */
+    private static Exp resolve(Exp exp, List<List<AtomSymbol>> frames, FnScope fn) {
+        return switch (exp) {
+            case Ref(var name) -> address(name, frames, fn);
+            case LocalRef r -> r;
+            case GlobalRef r -> r;
+            case Num n -> n;
+            case Bool b -> b;
+            case Str s -> s;
+            case Conditional(var test, var ifTrue, var ifFalse) ->
+                new Conditional(resolve(test, frames, fn), resolve(ifTrue, frames, fn), resolve(ifFalse, frames, fn));
+            case Let(var names, var inits, var body) ->
+                new Let(names, inits.map((i) -> resolve(i, frames, fn)), resolve(body, new Cons<>(names, frames), fn));
+            case Fn(var formals, var body, var ignored, var arity) -> {
+                var inner = new FnScope(fn, frames);
+                var resolvedBody = resolve(body, List.of(formals), inner);
+                yield new Fn(formals, resolvedBody, List.fromList(inner.captureSources()), arity);
+            }
+            case Call(var fnExp, var args) -> {
+                var target = resolve(fnExp, frames, fn);
+                var resolvedArgs = args.map((a) -> resolve(a, frames, fn));
+                yield target instanceof GlobalRef(var name, var cell)
+                        && PrimOp.Kind.named(name) instanceof PrimOp.Kind kind
+                        && kind.arity() == resolvedArgs.length()
+                        && !cell.isDeclared()
+                    ? new PrimOp(kind, resolvedArgs, cell)
+                    : new Call(target, resolvedArgs);
+            }
+            case PrimOp(var kind, var args, var cell) -> new PrimOp(kind, args.map((a) -> resolve(a, frames, fn)), cell);
+            case Seq(var exps) -> new Seq(exps.map((e) -> resolve(e, frames, fn)));
+            case InertObj o -> o;
+            case ExtendObj(var selector, var formals, var body, var base, var ignored, var arity) -> {
+                var inner = new FnScope(fn, frames);
+                var resolvedBody = resolve(body, List.of(new Cons<>(SELF, formals)), inner);
+                yield new ExtendObj(selector, formals, resolvedBody, resolve(base, frames, fn), List.fromList(inner.captureSources()), arity);
+            }
+            case CallMethod(var objExp, var selector, var args, var cache) ->
+                new CallMethod(resolve(objExp, frames, fn), selector, args.map((a) -> resolve(a, frames, fn)));
+            case Throw(var exnExp) -> new Throw(resolve(exnExp, frames, fn));
+            case TryCatch(var body, var exnVar, var handler) ->
+                new TryCatch(resolve(body, frames, fn), exnVar, resolve(handler, new Cons<>(List.of(exnVar), frames), fn));
+        };
+    }
+
+    /**
+     * Answer a LocalRef for the innermost binding of `name`, or a global reference if there is none.
+     * Bindings from outside the function described by `fn` are captured: they are recorded in `fn`
+     * and addressed in the captured frame just beyond `frames`.
+     */
+    private static Exp address(AtomSymbol name, List<List<AtomSymbol>> frames, FnScope fn) {
+        var depth = 0;
+        for (var frame : frames) {
+            var index = indexOf(name, frame);
+            if (index >= 0) {
+                return new LocalRef(name, depth, index);
+            }
+            depth++;
+        }
+        if (fn.enclosing() == null) {
+            return fn.global(name);
+        }
+        var index = fn.captureNames().indexOf(name);
+        if (index < 0) {
+            if (!(address(name, fn.enclosingFrames(), fn.enclosing()) instanceof LocalRef source)) {
+                return fn.global(name);
+            }
+            index = fn.captureNames().size();
+            fn.captureNames().add(name);
+            fn.captureSources().add(source);
+        }
+        return new LocalRef(name, depth, index);
+    }
+
+    /** Answer the position of the first occurrence of `name` in `names`, or -1 if absent. */
+    private static int indexOf(AtomSymbol name, List<AtomSymbol> names) {
+        var index = 0;
+        for (var n : names) {
+            if (n.equals(name)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+}
@@ -1,6 +1,13 @@
 package umlang.ast;
 
+import umlang.value.VStr;
+
 /**
- * A Str is a literal string expression.
+ * A Str is a literal string expression. `constant` is its value, built once so that evaluating the
+ * literal allocates nothing.
  */
-public record Str(String value) implements Exp {}
\ No newline at end of file
+public record Str(String value, VStr constant) implements Exp {
+    public Str(String value) {
+        this(value, new VStr(value));
+    }
+}
@@ -0,0 +1,261 @@
+package umlang.bytecode;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import immutable.Cons;
+import syntax.AtomSymbol;
+import umlang.Frame;
+import umlang.GlobalEnvironment;
+import umlang.Interpreter;
+import umlang.ast.CallMethod;
+import umlang.ast.Exp;
+import umlang.ast.ExtendObj;
+import umlang.ast.Fn;
+import umlang.ast.GlobalRef;
+import umlang.ast.PrimOp;
+import umlang.errors.ExpectedFn;
+import umlang.errors.InterpretationException;
+import umlang.jit.Jit;
+import umlang.value.VFn;
+import umlang.value.VObj;
+import umlang.value.VPrim;
+import umlang.value.Value;
+
+/**
+ * A BytecodeInterpreter compiles `Exp`s to Chunks (see Compiler) and runs them in a single loop,
+ * using an operand stack and an explicit stack of call frames instead of Java recursion.
+ */
+public class BytecodeInterpreter extends Interpreter {
+    private static final AtomSymbol SELF = new AtomSymbol("self");
+
+    private final Jit jit;
+
+    /** Compiled function and method bodies, keyed by the identity of the body `Exp`. */
+    private final IdentityHashMap<Exp, Chunk> chunks = new IdentityHashMap<>();
+
+    public BytecodeInterpreter() {
+        this(new GlobalEnvironment<>());
+    }
+
+    public BytecodeInterpreter(GlobalEnvironment<Value> globals) {
+        super(globals);
+        this.jit = new Jit(globals);
+    }
+
+    @Override
+    public Interpreter fork() {
+        return new BytecodeInterpreter(globals());
+    }
+
+    @Override
+    public Value evaluate(Exp exp, Frame env) throws InterpretationException {
+        return run(Compiler.compile(exp), env);
+    }
+
+    @Override
+    public Value callMethod(Value receiver, AtomSymbol selector, Value... arguments) throws InterpretationException {
+        var method = receiver.asObj().lookup(selector);
+        return run(chunkFor(method.body()), method.enter(withReceiver(receiver, arguments)));
+    }
+
+    @Override
+    public Value apply(Value fn, Value[] args) throws InterpretationException {
+        return switch (fn) {
+            case VFn f -> run(chunkFor(f.body()), f.enter(args));
+            case VPrim prim -> prim.call(this, args);
+            default -> new ExpectedFn(fn).signal();
+        };
+    }
+
+    /** Answer the (possibly cached) Chunk for the body of a function or method. */
+    private Chunk chunkFor(Exp body) {
+        var chunk = chunks.get(body);
+        if (chunk == null) {
+            chunk = Compiler.compile(body);
+            chunks.put(body, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Run `chunk` in `env` until it RETURNs, answering the returned value.
+     * Each run has its own Machine, and so its own operand and call-frame stacks, so runs may nest.
+     */
+    private Value run(Chunk chunk, Frame env) throws InterpretationException {
+        return new Machine(chunk, env).run();
+    }
+
+    /** A Machine is the state of one run: the Chunk being executed, its operand stack, and the suspended callers. */
+    private final class Machine {
+        private Chunk chunk;
+        private int[] code;
+        private Object[] constants;
+        private int pc = 0;
+        private Frame env;
+
+        // The operand stack. Values at or above `sp` are garbage, and are left for later pushes to overwrite.
+        private Value[] stack;
+        private int sp = 0;
+
+        // The call-frame stack, as parallel arrays: the Chunk, resume position and environment of each
+        // suspended caller.
+        private Chunk[] frameChunks = new Chunk[16];
+        private int[] framePcs = new int[16];
+        private Frame[] frameEnvs = new Frame[16];
+        private int fp = 0;
+
+        Machine(Chunk chunk, Frame env) {
+            this.chunk = chunk;
+            this.code = chunk.code();
+            this.constants = chunk.constants();
+            this.env = env;
+            this.stack = new Value[Math.max(64, chunk.maxStack())];
+        }
+
+        Value run() throws InterpretationException {
+            while (true) {
+                switch (code[pc]) {
+                    case Op.CONST -> {
+                        stack[sp++] = (Value) constants[code[pc + 1]];
+                        pc += 2;
+                    }
+                    case Op.LOCAL -> {
+                        stack[sp++] = env.lookup(code[pc + 1], code[pc + 2]);
+                        pc += 3;
+                    }
+                    case Op.GLOBAL -> {
+                        stack[sp++] = lookup((AtomSymbol) constants[code[pc + 1]]);
+                        pc += 2;
+                    }
+                    case Op.CELL -> {
+                        stack[sp++] = ((GlobalRef) constants[code[pc + 1]]).cell().get();
+                        pc += 2;
+                    }
+                    case Op.POP -> {
+                        sp--;
+                        pc += 1;
+                    }
+                    case Op.JUMP -> pc = code[pc + 1];
+                    case Op.JUMP_IF_FALSE -> {
+                        var test = stack[--sp];
+                        pc = test.isTruthy() ? pc + 2 : code[pc + 1];
+                    }
+                    case Op.LET -> {
+                        var n = code[pc + 1];
+                        sp -= n;
+                        env = new Frame(Arrays.copyOfRange(stack, sp, sp + n), env);
+                        pc += 2;
+                    }
+                    case Op.UNLET -> {
+                        env = env.parent();
+                        pc += 1;
+                    }
+                    case Op.CLOSURE -> {
+                        var fn = (Fn) constants[code[pc + 1]];
+                        stack[sp++] = new VFn(fn.formals(), fn.body(), env.capture(fn.captures()), fn.arity());
+                        pc += 2;
+                    }
+                    case Op.INERT -> {
+                        stack[sp++] = VObj.EMPTY;
+                        pc += 1;
+                    }
+                    case Op.EXTEND -> {
+                        var e = (ExtendObj) constants[code[pc + 1]];
+                        var method = new VFn(new Cons<>(SELF, e.formals()), e.body(), env.capture(e.captures()), e.arity() + 1);
+                        stack[sp - 1] = stack[sp - 1].asObj().extend(e.selector(), method);
+                        pc += 2;
+                    }
+                    case Op.CALL -> {
+                        var n = code[pc + 1];
+                        var callee = stack[sp - n - 1];
+                        var args = Arrays.copyOfRange(stack, sp - n, sp);
+                        sp -= n + 1;
+                        pc += 2;
+                        call(callee, args);
+                    }
+                    case Op.SEND -> {
+                        var site = (CallMethod) constants[code[pc + 1]];
+                        var n = code[pc + 2];
+                        var args = Arrays.copyOfRange(stack, sp - n - 1, sp);
+                        sp -= n + 1;
+                        pc += 3;
+                        enter(site.cache().lookup(args[0].asObj(), site.selector()), args);
+                    }
+                    case Op.PRIM -> {
+                        var p = (PrimOp) constants[code[pc + 1]];
+                        pc += 2;
+                        if (p.cell().isDeclared()) {
+                            var n = p.kind().arity();
+                            var args = Arrays.copyOfRange(stack, sp - n, sp);
+                            sp -= n;
+                            call(p.cell().get(), args);
+                        } else if (p.kind().arity() == 1) {
+                            stack[sp - 1] = p.kind().apply(stack[sp - 1]);
+                        } else {
+                            sp--;
+                            stack[sp - 1] = p.kind().apply(stack[sp - 1], stack[sp]);
+                        }
+                    }
+                    case Op.RETURN -> {
+                        var result = stack[--sp];
+                        if (fp == 0) {
+                            return result;
+                        }
+                        fp--;
+                        chunk = frameChunks[fp];
+                        pc = framePcs[fp];
+                        env = frameEnvs[fp];
+                        frameChunks[fp] = null;
+                        frameEnvs[fp] = null;
+                        code = chunk.code();
+                        constants = chunk.constants();
+                        stack[sp++] = result;
+                    }
+                    case Op.THROW ->
+                        throw new RuntimeException("UNIMPLEMENTED Throw in umlang.bytecode.BytecodeInterpreter");
+                    case Op.CATCH ->
+                        throw new RuntimeException("UNIMPLEMENTED TryCatch in umlang.bytecode.BytecodeInterpreter");
+                    default ->
+                        throw new IllegalStateException("Bad opcode " + code[pc] + " at " + pc);
+                }
+            }
+        }
+
+        /** Call `callee` on `args`: directly if it is a primitive or has compiled code, otherwise by entering it. */
+        private void call(Value callee, Value[] args) throws InterpretationException {
+            if (callee instanceof VPrim prim) {
+                stack[sp++] = prim.call(BytecodeInterpreter.this, args);
+            } else if (callee instanceof VFn fn) {
+                if (jit.tryInvoke(fn, args) instanceof Value result) {
+                    stack[sp++] = result;
+                } else {
+                    enter(fn, args);
+                }
+            } else {
+                new ExpectedFn(callee).signal();
+            }
+        }
+
+        /** Suspend the caller, to resume at `pc`, and switch to the Chunk of `fn` applied to `args`. */
+        private void enter(VFn fn, Value[] args) throws InterpretationException {
+            if (fp == frameChunks.length) {
+                frameChunks = Arrays.copyOf(frameChunks, fp * 2);
+                framePcs = Arrays.copyOf(framePcs, fp * 2);
+                frameEnvs = Arrays.copyOf(frameEnvs, fp * 2);
+            }
+            frameChunks[fp] = chunk;
+            framePcs[fp] = pc;
+            frameEnvs[fp] = env;
+            fp++;
+            env = fn.enter(args);
+            chunk = chunkFor(fn.body());
+            code = chunk.code();
+            constants = chunk.constants();
+            pc = 0;
+            if (sp + chunk.maxStack() > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(sp + chunk.maxStack(), stack.length * 2));
+            }
+        }
+    }
+}
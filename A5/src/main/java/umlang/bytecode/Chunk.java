@@ -0,0 +1,24 @@
+package umlang.bytecode;
+
+/**
+ * A Chunk is the compiled form of one function body, method body or toplevel expression.
+ * `code` holds instructions (see Op), `constants` the constant pool they refer to, and `maxStack`
+ * the greatest number of operand stack slots the code can occupy at once.
+ */
+public record Chunk(int[] code, Object[] constants, int maxStack) {
+    /** Produce a readable listing of `code`, for debugging. */
+    public String disassemble() {
+        var sb = new StringBuilder();
+        var pc = 0;
+        while (pc < code.length) {
+            var op = code[pc];
+            sb.append(pc).append('\t').append(Op.NAMES[op]);
+            for (var i = 1; i <= Op.OPERANDS[op]; i++) {
+                sb.append(' ').append(code[pc + i]);
+            }
+            sb.append('\n');
+            pc += 1 + Op.OPERANDS[op];
+        }
+        return sb.toString();
+    }
+}
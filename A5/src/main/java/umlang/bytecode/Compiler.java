@@ -0,0 +1,156 @@
+package umlang.bytecode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import immutable.Cons;
+import umlang.ast.Bool;
+import umlang.ast.Call;
+import umlang.ast.CallMethod;
+import umlang.ast.Conditional;
+import umlang.ast.Exp;
+import umlang.ast.ExtendObj;
+import umlang.ast.Fn;
+import umlang.ast.GlobalRef;
+import umlang.ast.InertObj;
+import umlang.ast.Let;
+import umlang.ast.LocalRef;
+import umlang.ast.Num;
+import umlang.ast.PrimOp;
+import umlang.ast.Ref;
+import umlang.ast.Seq;
+import umlang.ast.Str;
+import umlang.ast.Throw;
+import umlang.ast.TryCatch;
+
+/**
+ * A Compiler translates one resolved `Exp` (see `umlang.ast.Resolver`) into a Chunk.
+ * Nested `Fn` and method bodies are not compiled here: they become CLOSURE and EXTEND constants,
+ * and are compiled to Chunks of their own the first time they are called.
+ */
+public class Compiler {
+    private int[] code = new int[16];
+    private int length = 0;
+    private final ArrayList<Object> constants = new ArrayList<>();
+    private int depth = 0;
+    private int maxDepth = 0;
+
+    private Compiler() {}
+
+    /** Compile `body` into a Chunk that leaves its value on the operand stack and RETURNs it. */
+    public static Chunk compile(Exp body) {
+        var c = new Compiler();
+        c.emit(body);
+        c.op(Op.RETURN, -1);
+        return new Chunk(Arrays.copyOf(c.code, c.length), c.constants.toArray(), c.maxDepth);
+    }
+
+    /** Emit code that pushes the value of `exp`. */
+    private void emit(Exp exp) {
+        switch (exp) {
+            case Ref(var name) -> op(Op.GLOBAL, 1, constant(name));
+            case GlobalRef r -> op(Op.CELL, 1, constant(r));
+            case LocalRef(var name, var d, var index) -> op(Op.LOCAL, 1, d, index);
+            case Num n -> op(Op.CONST, 1, constant(n.constant()));
+            case Bool b -> op(Op.CONST, 1, constant(b.constant()));
+            case Str s -> op(Op.CONST, 1, constant(s.constant()));
+            case Conditional(var test, var ifTrue, var ifFalse) -> {
+                emit(test);
+                var toElse = jump(Op.JUMP_IF_FALSE, -1);
+                emit(ifTrue);
+                var toEnd = jump(Op.JUMP, 0);
+                depth--;
+                patch(toElse);
+                emit(ifFalse);
+                patch(toEnd);
+            }
+            case Let(var names, var inits, var body) -> {
+                var n = 0;
+                for (var i : inits) {
+                    emit(i);
+                    n++;
+                }
+                op(Op.LET, -n, n);
+                emit(body);
+                op(Op.UNLET, 0);
+            }
+            case Fn f -> op(Op.CLOSURE, 1, constant(f));
+            case Call(var fnExp, var args) -> {
+                emit(fnExp);
+                var n = 0;
+                for (var a : args) {
+                    emit(a);
+                    n++;
+                }
+                op(Op.CALL, -n, n);
+            }
+            case PrimOp p -> {
+                for (var a : p.args()) {
+                    emit(a);
+                }
+                op(Op.PRIM, 1 - p.kind().arity(), constant(p));
+            }
+            case Seq(var exps) -> {
+                var remaining = exps;
+                while (remaining.rest() instanceof Cons<Exp> more) {
+                    emit(remaining.first());
+                    op(Op.POP, -1);
+                    remaining = more;
+                }
+                emit(remaining.first());
+            }
+            case InertObj() -> op(Op.INERT, 1);
+            case ExtendObj e -> {
+                emit(e.base());
+                op(Op.EXTEND, 0, constant(e));
+            }
+            case CallMethod c -> {
+                emit(c.objExp());
+                var n = 0;
+                for (var a : c.args()) {
+                    emit(a);
+                    n++;
+                }
+                op(Op.SEND, -n, constant(c), n);
+            }
+            case Throw(var exnExp) -> {
+                emit(exnExp);
+                op(Op.THROW, 0);
+            }
+            case TryCatch t -> op(Op.CATCH, 1, constant(t));
+        }
+    }
+
+    /** Append an instruction whose net effect on the operand stack is `stackEffect` slots. */
+    private void op(int opcode, int stackEffect, int... operands) {
+        append(opcode);
+        for (var operand : operands) {
+            append(operand);
+        }
+        depth += stackEffect;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /** Append a jump instruction with a placeholder target, answering the position to `patch` later. */
+    private int jump(int opcode, int stackEffect) {
+        op(opcode, stackEffect, -1);
+        return length - 1;
+    }
+
+    /** Make the jump whose target operand is at `position` continue at the current end of the code. */
+    private void patch(int position) {
+        code[position] = length;
+    }
+
+    private void append(int word) {
+        if (length == code.length) {
+            code = Arrays.copyOf(code, length * 2);
+        }
+        code[length++] = word;
+    }
+
+    private int constant(Object value) {
+        constants.add(value);
+        return constants.size() - 1;
+    }
+}
@@ -0,0 +1,66 @@
+package umlang.bytecode;
+
+/**
+ * Op only exists to hold the opcodes understood by BytecodeInterpreter.
+ *
+ * Each instruction is an opcode followed by its operands, all stored inline in a Chunk's `code` array.
+ * Operands named `k` index the Chunk's constant pool. The stack effect of each instruction is given
+ * as (before -- after), top of stack rightmost.
+ */
+public final class Op {
+    private Op() {}
+
+    /** CONST k: ( -- constants[k] ). `constants[k]` is a Value. */
+    public static final int CONST = 0;
+    /** LOCAL depth index: ( -- v ), where v is slot `index` of the Frame `depth` links up. */
+    public static final int LOCAL = 1;
+    /** GLOBAL k: ( -- v ), where v is the global or primitive named by the AtomSymbol `constants[k]`. */
+    public static final int GLOBAL = 2;
+    /** POP: ( v -- ) */
+    public static final int POP = 3;
+    /** JUMP target: ( -- ), continuing at `target`. */
+    public static final int JUMP = 4;
+    /** JUMP_IF_FALSE target: ( test -- ), continuing at `target` unless `test` is #t. Signals ExpectedBool for non-booleans. */
+    public static final int JUMP_IF_FALSE = 5;
+    /** LET n: ( v1 ... vn -- ), making a new Frame holding v1 ... vn the current environment. */
+    public static final int LET = 6;
+    /** UNLET: ( -- ), restoring the environment that was current before the matching LET. */
+    public static final int UNLET = 7;
+    /** CLOSURE k: ( -- fn ), closing the Fn `constants[k]` over the current environment. */
+    public static final int CLOSURE = 8;
+    /** CALL n: ( f a1 ... an -- result ) */
+    public static final int CALL = 9;
+    /** INERT: ( -- obj ), a fresh object with no methods. */
+    public static final int INERT = 10;
+    /** EXTEND k: ( base -- obj ), extending `base` with the method described by the ExtendObj `constants[k]`. */
+    public static final int EXTEND = 11;
+    /** SEND k n: ( receiver a1 ... an -- result ), invoking a method through the CallMethod `constants[k]`'s cache. */
+    public static final int SEND = 12;
+    /** RETURN: ( result -- ), returning to the caller's Chunk. */
+    public static final int RETURN = 13;
+    /** THROW: ( exn -- ) */
+    public static final int THROW = 14;
+    /** CATCH k: runs the TryCatch `constants[k]`. */
+    public static final int CATCH = 15;
+    /** CELL k: ( -- v ), where v is the contents of the GlobalCell of the GlobalRef `constants[k]`. */
+    public static final int CELL = 16;
+    /**
+     * PRIM k: ( a1 ... an -- result ), running the PrimOp `constants[k]`, of arity n. If the primitive's
+     * name has since been declared, calls the global instead.
+     */
+    public static final int PRIM = 17;
+
+    /** Human-readable opcode names, indexed by opcode. */
+    static final String[] NAMES = {
+        "CONST", "LOCAL", "GLOBAL", "POP", "JUMP", "JUMP_IF_FALSE", "LET", "UNLET",
+        "CLOSURE", "CALL", "INERT", "EXTEND", "SEND", "RETURN", "THROW", "CATCH",
+        "CELL", "PRIM",
+    };
+
+    /** Number of operands following each opcode, indexed by opcode. */
+    static final int[] OPERANDS = {
+        1, 2, 1, 0, 1, 1, 1, 0,
+        1, 1, 0, 1, 2, 0, 0, 1,
+        1, 1,
+    };
+}
@@ -7,9 +7,13 @@ public sealed interface Error permits
     MethodNotFound,
     ExpectedNum,
     ExpectedBool,
+    ExpectedStr,
     ExpectedCell,
     ExpectedFn,
     ExpectedObj,
+    ExpectedVec,
+    ExpectedMap,
+    IndexOutOfRange,
     UserException,
     UninitializedGlobal
 {
@@ -26,9 +30,13 @@ public sealed interface Error permits
             case MethodNotFound(var selector) -> "Method not found: " + selector;
             case ExpectedNum(var actual) -> "Expected number: " + actual;
             case ExpectedBool(var actual) -> "Expected boolean: " + actual;
+            case ExpectedStr(var actual) -> "Expected string: " + actual;
             case ExpectedCell(var actual) -> "Expected cell: " + actual;
             case ExpectedFn(var actual) -> "Expected function: " + actual;
             case ExpectedObj(var actual) -> "Expected object: " + actual;
+            case ExpectedVec(var actual) -> "Expected vector: " + actual;
+            case ExpectedMap(var actual) -> "Expected map: " + actual;
+            case IndexOutOfRange(var index, var bound) -> "Index out of range: " + index + " (bound " + bound + ")";
             case UserException(var exn) -> "Exception thrown: " + exn;
             case UninitializedGlobal(var name) -> "Uninitialized global variable: " + name;
         };
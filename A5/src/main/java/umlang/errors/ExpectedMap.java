@@ -0,0 +1,6 @@
+package umlang.errors;
+
+import umlang.value.Value;
+
+/** During evaluation, a VMap was required, but something else was supplied. */
+public record ExpectedMap(Value actual) implements Error {}
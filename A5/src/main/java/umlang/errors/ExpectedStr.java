@@ -0,0 +1,6 @@
+package umlang.errors;
+
+import umlang.value.Value;
+
+/** During evaluation, a VStr was required, but something else was supplied. */
+public record ExpectedStr(Value actual) implements Error {}
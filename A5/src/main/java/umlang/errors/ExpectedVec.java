@@ -0,0 +1,6 @@
+package umlang.errors;
+
+import umlang.value.Value;
+
+/** During evaluation, a VVec was required, but something else was supplied. */
+public record ExpectedVec(Value actual) implements Error {}
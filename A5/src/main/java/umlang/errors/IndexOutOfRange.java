@@ -0,0 +1,4 @@
+package umlang.errors;
+
+/** During evaluation, an index or size was required to be a whole number below `bound`, but `index` was supplied. */
+public record IndexOutOfRange(double index, int bound) implements Error {}
@@ -0,0 +1,266 @@
+package umlang.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A ClassBuilder assembles a minimal JVM class file: a constant pool, and methods with Code attributes.
+ * It emits class file version 49 so that no StackMapTable attributes are required.
+ */
+final class ClassBuilder {
+    // Opcodes used by the Jit.
+    static final int ICONST_0 = 0x03, ICONST_1 = 0x04, DCONST_0 = 0x0e, BIPUSH = 0x10, SIPUSH = 0x11, LDC2_W = 0x14;
+    static final int ILOAD = 0x15, DLOAD = 0x18, ALOAD = 0x19, DALOAD = 0x31, ISTORE = 0x36, DSTORE = 0x39;
+    static final int POP = 0x57, POP2 = 0x58, DUP = 0x59;
+    static final int IADD = 0x60, DADD = 0x63, DSUB = 0x67, DMUL = 0x6b, DDIV = 0x6f, DCMPL = 0x97;
+    static final int IFEQ = 0x99, IFNE = 0x9a, IF_ICMPLT = 0xa1, GOTO = 0xa7;
+    static final int IRETURN = 0xac, DRETURN = 0xaf, ARETURN = 0xb0, RETURN = 0xb1;
+    static final int GETSTATIC = 0xb2, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, NEW = 0xbb, ATHROW = 0xbf;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final HashMap<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+    private final ArrayList<byte[]> methods = new ArrayList<>();
+    private final String name;
+    private final String[] interfaces;
+
+    ClassBuilder(String name, String... interfaces) {
+        this.name = name;
+        this.interfaces = interfaces;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /** Answer the class file bytes. */
+    byte[] toBytes() {
+        try {
+            var thisClass = classRef(name);
+            var superClass = classRef("java/lang/Object");
+            var interfaceRefs = new int[interfaces.length];
+            for (var i = 0; i < interfaces.length; i++) {
+                interfaceRefs[i] = classRef(interfaces[i]);
+            }
+            var bytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(0x0031); // ACC_PUBLIC | ACC_FINAL | ACC_SUPER
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaceRefs.length);
+            for (var ref : interfaceRefs) {
+                out.writeShort(ref);
+            }
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (var m : methods) {
+                out.write(m);
+            }
+            out.writeShort(0); // attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //----------------------------------------------------------------
+    // Constant pool
+
+    private int entry(String key, byte[] bytes, int slots) {
+        var existing = poolIndex.get(key);
+        if (existing != null) return existing;
+        var index = poolCount;
+        poolBytes.writeBytes(bytes);
+        poolCount += slots;
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    private static byte[] encode(int tag, Object... parts) {
+        try {
+            var bytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(bytes);
+            out.writeByte(tag);
+            for (var p : parts) {
+                switch (p) {
+                    case String s -> out.writeUTF(s);
+                    case Integer i -> out.writeShort(i);
+                    case Double d -> out.writeDouble(d);
+                    default -> throw new IllegalArgumentException("" + p);
+                }
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    int utf8(String s) {
+        return entry("U" + s, encode(1, s), 1);
+    }
+
+    int doubleConst(double d) {
+        return entry("D" + Double.doubleToRawLongBits(d), encode(6, d), 2);
+    }
+
+    int classRef(String internalName) {
+        var n = utf8(internalName);
+        return entry("C" + internalName, encode(7, n), 1);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        var n = utf8(name);
+        var d = utf8(descriptor);
+        return entry("N" + name + ":" + descriptor, encode(12, n, d), 1);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        var c = classRef(owner);
+        var nt = nameAndType(name, descriptor);
+        return entry("F" + owner + "." + name + ":" + descriptor, encode(9, c, nt), 1);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        var c = classRef(owner);
+        var nt = nameAndType(name, descriptor);
+        return entry("M" + owner + "." + name + ":" + descriptor, encode(10, c, nt), 1);
+    }
+
+    //----------------------------------------------------------------
+    // Methods
+
+    /** Begin a method. Call `Code.finish()` once its instructions are complete. */
+    Code method(int access, String name, String descriptor, int argumentSlots) {
+        return new Code(access, utf8(name), utf8(descriptor), argumentSlots);
+    }
+
+    /**
+     * A Code accumulates the instructions of one method, tracking operand stack depth as it goes.
+     * Branch targets are Labels, patched once bound.
+     */
+    final class Code {
+        private final int access;
+        private final int nameIndex;
+        private final int descriptorIndex;
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private final ArrayList<int[]> fixups = new ArrayList<>(); // {instruction position, operand position, label id}
+        private final ArrayList<Integer> labels = new ArrayList<>();
+        private int stack = 0;
+        private int maxStack = 0;
+        private int maxLocals;
+
+        private Code(int access, int nameIndex, int descriptorIndex, int argumentSlots) {
+            this.access = access;
+            this.nameIndex = nameIndex;
+            this.descriptorIndex = descriptorIndex;
+            this.maxLocals = argumentSlots;
+        }
+
+        /** Emit `opcode`, which changes the operand stack depth (in slots) by `stackEffect`. */
+        Code op(int opcode, int stackEffect) {
+            code.write(opcode);
+            adjust(stackEffect);
+            return this;
+        }
+
+        /** Emit `opcode` with a one-byte operand. */
+        Code op1(int opcode, int operand, int stackEffect) {
+            code.write(opcode);
+            code.write(operand);
+            adjust(stackEffect);
+            return this;
+        }
+
+        /** Emit `opcode` with a two-byte operand. */
+        Code op2(int opcode, int operand, int stackEffect) {
+            code.write(opcode);
+            code.write(operand >> 8);
+            code.write(operand);
+            adjust(stackEffect);
+            return this;
+        }
+
+        /** Emit a load or store of local `slot`, which must be below 256. */
+        Code local(int opcode, int slot, int stackEffect) {
+            maxLocals = Math.max(maxLocals, slot + (opcode == DLOAD || opcode == DSTORE ? 2 : 1));
+            return op1(opcode, slot, stackEffect);
+        }
+
+        /** Reserve `slots` local variable slots and answer the first. */
+        int newLocal(int slots) {
+            var slot = maxLocals;
+            maxLocals += slots;
+            return slot;
+        }
+
+        /** Emit a push of the int `i`. */
+        Code pushInt(int i) {
+            return i < 128 ? op1(BIPUSH, i, 1) : op2(SIPUSH, i, 1);
+        }
+
+        int newLabel() {
+            labels.add(-1);
+            return labels.size() - 1;
+        }
+
+        /** Emit a branch to `label`. */
+        Code jump(int opcode, int label, int stackEffect) {
+            fixups.add(new int[] { code.size(), code.size() + 1, label });
+            return op2(opcode, 0, stackEffect);
+        }
+
+        /** Bind `label` to the current position, where the operand stack holds `stackDepth` slots. */
+        Code bind(int label, int stackDepth) {
+            labels.set(label, code.size());
+            stack = stackDepth;
+            return this;
+        }
+
+        int stackDepth() {
+            return stack;
+        }
+
+        private void adjust(int stackEffect) {
+            stack += stackEffect;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        /** Complete this method and add it to the class. */
+        void finish() {
+            var bytes = code.toByteArray();
+            for (var f : fixups) {
+                var offset = labels.get(f[2]) - f[0];
+                bytes[f[1]] = (byte) (offset >> 8);
+                bytes[f[1] + 1] = (byte) offset;
+            }
+            try {
+                var m = new ByteArrayOutputStream();
+                var out = new DataOutputStream(m);
+                out.writeShort(access);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+                out.writeShort(1);
+                out.writeShort(utf8("Code"));
+                out.writeInt(12 + bytes.length);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.writeShort(0); // exception table
+                out.writeShort(0); // attributes
+                methods.add(m.toByteArray());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package umlang.jit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import immutable.Cons;
+import immutable.List;
+import immutable.Nil;
+import immutable.None;
+import immutable.Some;
+import syntax.AtomSymbol;
+import umlang.Frame;
+import umlang.GlobalCell;
+import umlang.GlobalEnvironment;
+import umlang.ast.Bool;
+import umlang.ast.Call;
+import umlang.ast.Conditional;
+import umlang.ast.Exp;
+import umlang.ast.GlobalRef;
+import umlang.ast.Let;
+import umlang.ast.LocalRef;
+import umlang.ast.Num;
+import umlang.ast.PrimOp;
+import umlang.ast.Ref;
+import umlang.ast.Seq;
+import umlang.value.VFn;
+import umlang.value.Value;
+
+/**
+ * A Codegen compiles a numeric umlang function, together with every global function it calls, into a
+ * single hidden JVM class with one static method per function. Parameters are unboxed doubles; results
+ * are doubles or booleans, as inferred.
+ *
+ * Only a pure subset is supported: numeric and boolean literals, local variables, `if`, `let`, `seq`,
+ * the primitives `+ - * / =`, and calls to closed global functions in the same subset, except for tail
+ * calls that can recur, since compiled calls take JVM stack frames where the interpreters' tail calls do
+ * not. Because that subset has no side effects, compiled code may bail out at any point (see Deopt) and
+ * the whole call is simply re-run by the interpreter.
+ *
+ * Each method takes, after its parameters, the depth of compiled calls it is nested in, and bails out
+ * with Deopt.TOO_DEEP once that reaches MAX_DEPTH, so that deep recursion never overflows the JVM stack.
+ */
+final class Codegen {
+    /** The primitives compiled inline. */
+    private static final Set<String> OPERATORS = Set.of("+", "-", "*", "/", "=");
+
+    /** The deepest nesting of compiled calls before compiled code gives up. */
+    static final int MAX_DEPTH = 1000;
+
+    private enum Type { DOUBLE, BOOLEAN, UNKNOWN }
+
+    /** Signalled when the code to be compiled falls outside the supported subset. */
+    static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Unsupported(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+
+    /** A local variable: its JVM slot, and its type. */
+    private record Local(int slot, Type type) {}
+
+    /** The result of compilation: the code, and the global cells it assumes unchanged (null meaning "not declared"). */
+    record Result(CompiledCode code, Map<GlobalCell<Value>, Value> guards) {}
+
+    private final GlobalEnvironment<Value> globals;
+    private final ArrayList<VFn> group = new ArrayList<>();
+    private final IdentityHashMap<VFn, Integer> groupIndex = new IdentityHashMap<>();
+    private final LinkedHashMap<AtomSymbol, Value> guards = new LinkedHashMap<>();
+    /** The group functions each group function calls, and those it calls in tail position. */
+    private final ArrayList<HashSet<Integer>> calls = new ArrayList<>();
+    private final ArrayList<HashSet<Integer>> tailCalls = new ArrayList<>();
+    private Type[] returnTypes;
+    private ClassBuilder cb;
+    /** The slot of the call depth in the method being emitted. */
+    private int depthSlot;
+
+    private Codegen(GlobalEnvironment<Value> globals) {
+        this.globals = globals;
+    }
+
+    /** Compile `root`, answering its code and guards. Signals Unsupported if it cannot be compiled. */
+    static Result compile(GlobalEnvironment<Value> globals, VFn root) {
+        var g = new Codegen(globals);
+        g.collect(root);
+        g.inferReturnTypes();
+        var cells = new LinkedHashMap<GlobalCell<Value>, Value>();
+        g.guards.forEach((name, value) -> cells.put(globals.cell(name), value));
+        return new Result(g.generate(), cells);
+    }
+
+    /** Answer the name `exp` refers to if it is a reference to a global, or else null. */
+    private static AtomSymbol globalName(Exp exp) {
+        return switch (exp) {
+            case Ref(var name) -> name;
+            case GlobalRef(var name, var cell) -> name;
+            default -> null;
+        };
+    }
+
+    //----------------------------------------------------------------
+    // Collecting the group of functions to compile together
+
+    private void collect(VFn root) {
+        add(root);
+        for (var i = 0; i < group.size(); i++) {
+            calls.add(new HashSet<>());
+            tailCalls.add(new HashSet<>());
+            scan(group.get(i).body(), i, true);
+        }
+        // Compiled calls each take a JVM frame, so a cycle of tail calls, which the interpreters run in
+        // constant space, could overflow the stack however deep the program expects to go.
+        for (var i = 0; i < group.size(); i++) {
+            for (var j : tailCalls.get(i)) {
+                if (reaches(j, i)) throw new Unsupported("recursive tail call");
+            }
+        }
+    }
+
+    /** True iff function `from` of the group calls function `to`, directly or through others. */
+    private boolean reaches(int from, int to) {
+        var seen = new HashSet<Integer>();
+        var pending = new ArrayList<Integer>();
+        pending.add(from);
+        while (!pending.isEmpty()) {
+            var i = pending.removeLast();
+            if (i == to) return true;
+            if (seen.add(i)) pending.addAll(calls.get(i));
+        }
+        return false;
+    }
+
+    private int add(VFn fn) {
+        if (fn.env() != Frame.EMPTY) {
+            throw new Unsupported("closure with free variables");
+        }
+        var index = groupIndex.get(fn);
+        if (index == null) {
+            index = group.size();
+            group.add(fn);
+            groupIndex.put(fn, index);
+        }
+        return index;
+    }
+
+    /**
+     * Find the global functions called from `exp`, in the body of function `caller` of the group, adding
+     * them to the group and recording guards and calls. `tail` is true iff `exp` is in tail position.
+     */
+    private void scan(Exp exp, int caller, boolean tail) {
+        switch (exp) {
+            case Num n -> {}
+            case Bool b -> {}
+            case LocalRef r -> {}
+            case Conditional(var test, var ifTrue, var ifFalse) -> {
+                scan(test, caller, false);
+                scan(ifTrue, caller, tail);
+                scan(ifFalse, caller, tail);
+            }
+            case Let(var names, var inits, var body) -> {
+                for (var i : inits) scan(i, caller, false);
+                scan(body, caller, tail);
+            }
+            case Seq(var exps) -> {
+                for (List<Exp> rest = exps; rest instanceof Cons<Exp>(var e, var more); rest = more) {
+                    scan(e, caller, tail && more instanceof Nil);
+                }
+            }
+            case PrimOp p -> scan(p.asCall(), caller, tail);
+            case Call(var target, var args) when globalName(target) instanceof AtomSymbol name -> {
+                switch (globals.lookup(name)) {
+                    case Some(Some(VFn callee)) -> {
+                        guards.put(name, callee);
+                        var index = add(callee);
+                        calls.get(caller).add(index);
+                        if (tail) tailCalls.get(caller).add(index);
+                    }
+                    case None() when OPERATORS.contains(name.label()) -> guards.put(name, null);
+                    default -> throw new Unsupported("call to " + name);
+                }
+                for (var a : args) scan(a, caller, false);
+            }
+            default -> throw new Unsupported(exp.getClass().getSimpleName());
+        }
+    }
+
+    /** Answer the group index of the function `name` is bound to, or -1 if it is an inlined operator. */
+    private int callee(AtomSymbol name) {
+        var target = guards.get(name);
+        return target == null ? -1 : groupIndex.get((VFn) target);
+    }
+
+    //----------------------------------------------------------------
+    // Type inference
+
+    /** Infer the return type of each function in the group by iterating to a fixpoint. */
+    private void inferReturnTypes() {
+        returnTypes = new Type[group.size()];
+        Arrays.fill(returnTypes, Type.UNKNOWN);
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (var i = 0; i < group.size(); i++) {
+                var fn = group.get(i);
+                var t = typeOf(fn.body(), new Cons<>(parameters(fn), List.empty()));
+                if (t != returnTypes[i]) {
+                    if (returnTypes[i] != Type.UNKNOWN) throw new Unsupported("unstable return type");
+                    returnTypes[i] = t;
+                    changed = true;
+                }
+            }
+        }
+        for (var t : returnTypes) {
+            if (t == Type.UNKNOWN) throw new Unsupported("function never returns");
+        }
+    }
+
+    private static Local[] parameters(VFn fn) {
+        var params = new Local[fn.formals().length()];
+        for (var i = 0; i < params.length; i++) {
+            params[i] = new Local(2 * i, Type.DOUBLE);
+        }
+        return params;
+    }
+
+    /** Answer the type of `exp`, or UNKNOWN if that depends on a return type not yet inferred. */
+    private Type typeOf(Exp exp, List<Local[]> frames) {
+        return switch (exp) {
+            case Num n -> Type.DOUBLE;
+            case Bool b -> Type.BOOLEAN;
+            case LocalRef(var name, var depth, var index) -> frames.get(depth)[index].type();
+            case Conditional(var test, var ifTrue, var ifFalse) -> {
+                expect(Type.BOOLEAN, typeOf(test, frames));
+                yield unify(typeOf(ifTrue, frames), typeOf(ifFalse, frames));
+            }
+            case Let(var names, var inits, var body) -> {
+                var frame = new ArrayList<Local>();
+                for (var i : inits) {
+                    frame.add(new Local(-1, typeOf(i, frames)));
+                }
+                yield typeOf(body, new Cons<>(frame.toArray(new Local[0]), frames));
+            }
+            case Seq(var exps) -> {
+                var t = Type.UNKNOWN;
+                for (var e : exps) t = typeOf(e, frames);
+                yield t;
+            }
+            case PrimOp p -> typeOf(p.asCall(), frames);
+            case Call(var target, var args) when globalName(target) instanceof AtomSymbol name -> {
+                for (var a : args) expect(Type.DOUBLE, typeOf(a, frames));
+                var index = callee(name);
+                if (index < 0) {
+                    if (args.length() != 2) throw new Unsupported("operator arity");
+                    yield name.label().equals("=") ? Type.BOOLEAN : Type.DOUBLE;
+                }
+                if (args.length() != group.get(index).formals().length()) throw new Unsupported("arity");
+                yield returnTypes[index];
+            }
+            default -> throw new Unsupported(exp.getClass().getSimpleName());
+        };
+    }
+
+    private static void expect(Type expected, Type actual) {
+        if (actual != expected && actual != Type.UNKNOWN) throw new Unsupported("expected " + expected);
+    }
+
+    private static Type unify(Type a, Type b) {
+        if (a == Type.UNKNOWN) return b;
+        if (b == Type.UNKNOWN || a == b) return a;
+        throw new Unsupported("branches differ in type");
+    }
+
+    //----------------------------------------------------------------
+    // Code generation
+
+    private static String descriptor(Type t) {
+        return t == Type.DOUBLE ? "D" : "Z";
+    }
+
+    private String methodDescriptor(int index) {
+        return "(" + "D".repeat(group.get(index).formals().length()) + "I)" + descriptor(returnTypes[index]);
+    }
+
+    private CompiledCode generate() {
+        cb = new ClassBuilder("umlang/jit/Compiled", "umlang/jit/CompiledCode");
+
+        var init = cb.method(0x0001, "<init>", "()V", 1);
+        init.local(ClassBuilder.ALOAD, 0, 1);
+        init.op2(ClassBuilder.INVOKESPECIAL, cb.methodRef("java/lang/Object", "<init>", "()V"), -1);
+        init.op(ClassBuilder.RETURN, 0);
+        init.finish();
+
+        for (var i = 0; i < group.size(); i++) {
+            var fn = group.get(i);
+            depthSlot = 2 * fn.formals().length();
+            var code = cb.method(0x000A, "f" + i, methodDescriptor(i), depthSlot + 1); // private static
+            var shallow = code.newLabel();
+            code.local(ClassBuilder.ILOAD, depthSlot, 1);
+            code.pushInt(MAX_DEPTH);
+            code.jump(ClassBuilder.IF_ICMPLT, shallow, -2);
+            code.op2(ClassBuilder.GETSTATIC, cb.fieldRef("umlang/jit/Deopt", "TOO_DEEP", "Lumlang/jit/Deopt;"), 1);
+            code.op(ClassBuilder.ATHROW, -1);
+            code.bind(shallow, 0);
+            emit(fn.body(), new Cons<>(parameters(fn), List.empty()), code);
+            code.op(returnTypes[i] == Type.DOUBLE ? ClassBuilder.DRETURN : ClassBuilder.IRETURN, 0);
+            code.finish();
+        }
+
+        // call(double[]): unpack the arguments, call f0 at depth 0, and box its result.
+        var entry = cb.method(0x0001, "call", "([D)Lumlang/value/Value;", 2);
+        var arity = group.get(0).formals().length();
+        for (var i = 0; i < arity; i++) {
+            entry.local(ClassBuilder.ALOAD, 1, 1);
+            entry.pushInt(i);
+            entry.op(ClassBuilder.DALOAD, 0);
+        }
+        entry.op(ClassBuilder.ICONST_0, 1);
+        entry.op2(ClassBuilder.INVOKESTATIC, cb.methodRef(cb.name(), "f0", methodDescriptor(0)),
+            -2 * arity - 1 + size(returnTypes[0]));
+        var isDouble = returnTypes[0] == Type.DOUBLE;
+        var box = isDouble ? "umlang/value/VNum" : "umlang/value/VBool";
+        var boxDescriptor = "(" + descriptor(returnTypes[0]) + ")L" + box + ";";
+        entry.op2(ClassBuilder.INVOKESTATIC, cb.methodRef(box, "of", boxDescriptor), 1 - size(returnTypes[0]));
+        entry.op(ClassBuilder.ARETURN, -1);
+        entry.finish();
+
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClass(cb.toBytes(), true);
+            return (CompiledCode) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable t) {
+            throw new IllegalStateException("Jit produced an unloadable class", t);
+        }
+    }
+
+    private static int size(Type t) {
+        return t == Type.DOUBLE ? 2 : 1;
+    }
+
+    /** Emit code leaving the value of `exp` on the operand stack. */
+    private void emit(Exp exp, List<Local[]> frames, ClassBuilder.Code code) {
+        switch (exp) {
+            case Num(var n, var constant) -> {
+                if (Double.doubleToRawLongBits(n) == 0L) {
+                    code.op(ClassBuilder.DCONST_0, 2);
+                } else {
+                    code.op2(ClassBuilder.LDC2_W, cb.doubleConst(n), 2);
+                }
+            }
+            case Bool(var b) -> code.op(b ? ClassBuilder.ICONST_1 : ClassBuilder.ICONST_0, 1);
+            case LocalRef(var name, var depth, var index) -> {
+                var local = frames.get(depth)[index];
+                if (local.type() == Type.DOUBLE) {
+                    code.local(ClassBuilder.DLOAD, local.slot(), 2);
+                } else {
+                    code.local(ClassBuilder.ILOAD, local.slot(), 1);
+                }
+            }
+            case Conditional(var test, var ifTrue, var ifFalse) -> {
+                emit(test, frames, code);
+                var otherwise = code.newLabel();
+                var end = code.newLabel();
+                code.jump(ClassBuilder.IFEQ, otherwise, -1);
+                var depth = code.stackDepth();
+                emit(ifTrue, frames, code);
+                code.jump(ClassBuilder.GOTO, end, 0);
+                code.bind(otherwise, depth);
+                emit(ifFalse, frames, code);
+                code.bind(end, code.stackDepth());
+            }
+            case Let(var names, var inits, var body) -> {
+                var frame = new ArrayList<Local>();
+                for (var i : inits) {
+                    var t = typeOf(i, frames);
+                    emit(i, frames, code);
+                    var slot = code.newLocal(size(t));
+                    if (slot + size(t) > 255) throw new Unsupported("too many locals");
+                    code.local(t == Type.DOUBLE ? ClassBuilder.DSTORE : ClassBuilder.ISTORE, slot, -size(t));
+                    frame.add(new Local(slot, t));
+                }
+                emit(body, new Cons<>(frame.toArray(new Local[0]), frames), code);
+            }
+            case Seq(var exps) -> {
+                var remaining = exps;
+                while (remaining.rest() instanceof Cons<Exp> more) {
+                    var t = typeOf(remaining.first(), frames);
+                    emit(remaining.first(), frames, code);
+                    code.op(t == Type.DOUBLE ? ClassBuilder.POP2 : ClassBuilder.POP, -size(t));
+                    remaining = more;
+                }
+                emit(remaining.first(), frames, code);
+            }
+            case PrimOp p -> emit(p.asCall(), frames, code);
+            case Call(var target, var args) when globalName(target) instanceof AtomSymbol name -> {
+                var n = 0;
+                for (var a : args) {
+                    emit(a, frames, code);
+                    n++;
+                }
+                var index = callee(name);
+                if (index >= 0) {
+                    code.local(ClassBuilder.ILOAD, depthSlot, 1);
+                    code.op(ClassBuilder.ICONST_1, 1);
+                    code.op(ClassBuilder.IADD, -1);
+                    code.op2(ClassBuilder.INVOKESTATIC, cb.methodRef(cb.name(), "f" + index, methodDescriptor(index)),
+                        -2 * n - 1 + size(returnTypes[index]));
+                } else {
+                    emitOperator(name.label(), code);
+                }
+            }
+            default -> throw new Unsupported(exp.getClass().getSimpleName());
+        }
+    }
+
+    /** Emit an inlined primitive, with both (double) operands already on the stack. */
+    private void emitOperator(String operator, ClassBuilder.Code code) {
+        switch (operator) {
+            case "+" -> code.op(ClassBuilder.DADD, -2);
+            case "-" -> code.op(ClassBuilder.DSUB, -2);
+            case "*" -> code.op(ClassBuilder.DMUL, -2);
+            case "/" -> {
+                // Division by zero is reported by the interpreter, not by compiled code.
+                var denominator = code.newLocal(2);
+                var ok = code.newLabel();
+                code.local(ClassBuilder.DSTORE, denominator, -2);
+                code.local(ClassBuilder.DLOAD, denominator, 2);
+                code.op(ClassBuilder.DCONST_0, 2);
+                code.op(ClassBuilder.DCMPL, -3);
+                code.jump(ClassBuilder.IFNE, ok, -1);
+                var depth = code.stackDepth();
+                code.op2(ClassBuilder.GETSTATIC, cb.fieldRef("umlang/jit/Deopt", "INSTANCE", "Lumlang/jit/Deopt;"), 1);
+                code.op(ClassBuilder.ATHROW, -1);
+                code.bind(ok, depth);
+                code.local(ClassBuilder.DLOAD, denominator, 2);
+                code.op(ClassBuilder.DDIV, -2);
+            }
+            case "=" -> {
+                // Same as VNum.equals: Double.compare(a, b) == 0.
+                var otherwise = code.newLabel();
+                var end = code.newLabel();
+                code.op2(ClassBuilder.INVOKESTATIC, cb.methodRef("java/lang/Double", "compare", "(DD)I"), -3);
+                code.jump(ClassBuilder.IFNE, otherwise, -1);
+                var depth = code.stackDepth();
+                code.op(ClassBuilder.ICONST_1, 1);
+                code.jump(ClassBuilder.GOTO, end, 0);
+                code.bind(otherwise, depth);
+                code.op(ClassBuilder.ICONST_0, 1);
+                code.bind(end, depth + 1);
+            }
+            default -> throw new Unsupported(operator);
+        }
+    }
+}
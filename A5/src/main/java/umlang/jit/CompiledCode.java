@@ -0,0 +1,8 @@
+package umlang.jit;
+
+import umlang.value.Value;
+
+/** Implemented by each class the Jit generates: runs the compiled function on unboxed numeric arguments. */
+interface CompiledCode {
+    Value call(double[] args);
+}
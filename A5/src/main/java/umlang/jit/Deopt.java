@@ -0,0 +1,17 @@
+package umlang.jit;
+
+/**
+ * Thrown by compiled code when it meets a case it does not handle (such as division by zero).
+ * Compiled code is pure, so the Jit can simply re-run the whole call in the interpreter.
+ */
+final class Deopt extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    static final Deopt INSTANCE = new Deopt("deoptimize");
+    /** Thrown when compiled calls nest deeper than Codegen.MAX_DEPTH, which they are likely to keep doing. */
+    static final Deopt TOO_DEEP = new Deopt("too deep");
+
+    private Deopt(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,132 @@
+package umlang.jit;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import immutable.List;
+import umlang.Frame;
+import umlang.GlobalCell;
+import umlang.GlobalEnvironment;
+import umlang.ast.Exp;
+import umlang.value.VFn;
+import umlang.value.VNum;
+import umlang.value.Value;
+
+/**
+ * A Jit counts calls to each `VFn` body and, once a body is hot, tries to compile it to a hidden JVM
+ * class (see Codegen) so that HotSpot can optimize it directly. Interpreters ask it first on each call;
+ * whenever it answers null, the interpreter carries on evaluating the call itself.
+ *
+ * The environment variable UMLANG_JIT_THRESHOLD sets the number of calls before compilation
+ * (default 1000, also used if the value is malformed); a negative value disables the Jit.
+ */
+public class Jit {
+    /**
+     * A Profile is what the Jit knows about one function body: how often it has been called, and
+     * its compiled code and the global bindings that code assumes, if any. `unsupported` records
+     * that compilation was attempted and failed, so it is never tried again.
+     */
+    private static final class Profile {
+        int calls;
+        int arity;
+        CompiledCode code;
+        Map<GlobalCell<Value>, Value> guards;
+        boolean unsupported;
+    }
+
+    private final GlobalEnvironment<Value> globals;
+    private final int threshold;
+    private final IdentityHashMap<Exp, Profile> profiles = new IdentityHashMap<>();
+
+    public Jit(GlobalEnvironment<Value> globals) {
+        this(globals, THRESHOLD);
+    }
+
+    public Jit(GlobalEnvironment<Value> globals, int threshold) {
+        this.globals = globals;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Count a call of `fn` with `args`, and run it as compiled code if possible.
+     * Answers null if the caller must interpret the call itself.
+     */
+    public Value tryInvoke(VFn fn, Value[] args) {
+        var profile = profile(fn);
+        if (profile == null || profile.code == null) return null;
+        return run(profile, args);
+    }
+
+    /** True iff the body of `fn` currently has compiled code. */
+    public boolean isCompiled(VFn fn) {
+        var profile = profiles.get(fn.body());
+        return profile != null && profile.code != null;
+    }
+
+    /** Count a call of `fn`, compiling it if it has become hot. Answers null for functions that are never compiled. */
+    private Profile profile(VFn fn) {
+        if (threshold < 0 || fn.env() != Frame.EMPTY) return null;
+        var profile = profiles.get(fn.body());
+        if (profile == null) {
+            profile = new Profile();
+            profiles.put(fn.body(), profile);
+        }
+        if (profile.code == null && !profile.unsupported && ++profile.calls > threshold) {
+            try {
+                var result = Codegen.compile(globals, fn);
+                profile.code = result.code();
+                profile.guards = result.guards();
+                profile.arity = fn.arity();
+            } catch (Codegen.Unsupported e) {
+                profile.unsupported = true;
+            }
+        }
+        return profile;
+    }
+
+    /** Run compiled code, if `args` suit it and the globals it was compiled against are unchanged. */
+    private Value run(Profile profile, Value[] args) {
+        if (args.length != profile.arity) return null;
+        var unboxed = new double[args.length];
+        for (var i = 0; i < args.length; i++) {
+            if (!(args[i] instanceof VNum(var n))) return null;
+            unboxed[i] = n;
+        }
+        for (var guard : profile.guards.entrySet()) {
+            var cell = guard.getKey();
+            var valid = guard.getValue() == null ? !cell.isDeclared() : cell.value() == guard.getValue();
+            if (!valid) {
+                // A global was redefined: discard the code, and let it become hot again.
+                profile.code = null;
+                profile.calls = 0;
+                return null;
+            }
+        }
+        try {
+            return profile.code.call(unboxed);
+        } catch (Deopt e) {
+            if (e == Deopt.TOO_DEEP) {
+                // Recursion this deep is likely to recur, so give the function up for good rather than
+                // throw away a stack's worth of compiled work on every call.
+                profile.code = null;
+                profile.guards = null;
+                profile.unsupported = true;
+            }
+            return null;
+        }
+    }
+
+    private static final int THRESHOLD = threshold(System.getenv("UMLANG_JIT_THRESHOLD"));
+
+    /** Answer the threshold `envvar` sets, or the default if it is null or malformed. */
+    private static int threshold(String envvar) {
+        if (envvar != null) {
+            try {
+                return Integer.parseInt(envvar.trim());
+            } catch (NumberFormatException e) {
+                // Fall back to the default.
+            }
+        }
+        return 1000;
+    }
+}
@@ -0,0 +1,114 @@
+package umlang.node;
+
+import syntax.AtomSymbol;
+import umlang.Frame;
+import umlang.GlobalCell;
+import umlang.ast.PrimOp;
+import umlang.errors.InterpretationException;
+import umlang.value.VBool;
+import umlang.value.VNum;
+import umlang.value.Value;
+
+/**
+ * An ArithNode is a call of one of the binary primitives `+ - * / =` through an unshadowed global name.
+ * It starts out as an UninitializedArithNode, which on first execution rewrites itself to a
+ * DoubleArithNode if both operands are numbers, or else to a GenericArithNode. A DoubleArithNode that
+ * later sees a non-number rewrites itself to a GenericArithNode for good.
+ *
+ * If the operator's name is ever declared as a global, every ArithNode for it rewrites itself into an
+ * ordinary CallNode.
+ */
+public abstract sealed class ArithNode extends Node permits UninitializedArithNode, DoubleArithNode, GenericArithNode {
+    /** The operators an ArithNode can stand for. */
+    public enum Operator {
+        ADD(PrimOp.Kind.ADD), SUBTRACT(PrimOp.Kind.SUBTRACT), MULTIPLY(PrimOp.Kind.MULTIPLY),
+        DIVIDE(PrimOp.Kind.DIVIDE), EQUAL(PrimOp.Kind.EQUAL);
+
+        private final PrimOp.Kind kind;
+
+        Operator(PrimOp.Kind kind) {
+            this.kind = kind;
+        }
+
+        public AtomSymbol symbol() {
+            return kind.symbol();
+        }
+
+        /** Answer the primitive this operator stands for. */
+        public PrimOp.Kind kind() {
+            return kind;
+        }
+
+        /** Answer the Operator named `name`, or null if there is none. */
+        public static Operator named(AtomSymbol name) {
+            for (var op : values()) {
+                if (op.symbol().equals(name)) return op;
+            }
+            return null;
+        }
+    }
+
+    protected final NodeInterpreter interpreter;
+    protected final Operator operator;
+    protected final GlobalCell<Value> cell;
+    protected Node left;
+    protected Node right;
+
+    protected ArithNode(NodeInterpreter interpreter, Operator operator, GlobalCell<Value> cell, Node left, Node right) {
+        this.interpreter = interpreter;
+        this.operator = operator;
+        this.cell = cell;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    /** Constructor for specializations: takes over the children of `previous`. */
+    protected ArithNode(ArithNode previous) {
+        this(previous.interpreter, previous.operator, previous.cell, previous.left, previous.right);
+    }
+
+    public Operator operator() {
+        return operator;
+    }
+
+    /** True iff the operator's name has been declared as a global, and so no longer refers to the primitive. */
+    protected final boolean isShadowed() {
+        return cell.isDeclared();
+    }
+
+    /** Rewrite `this` into an ordinary call of whatever the operator's name is bound to, and run it. */
+    protected final Value executeAsCall(Frame frame) throws InterpretationException {
+        var call = new CallNode(interpreter, new GlobalNode(cell), new Node[] { left, right });
+        return replace(call).execute(frame);
+    }
+
+    /** Compute the operator on two numbers, exactly as the primitive does. */
+    protected final Value apply(double a, double b) throws InterpretationException {
+        if (operator == Operator.EQUAL) {
+            return VBool.of(Double.compare(a, b) == 0);
+        }
+        return VNum.of(applyNum(a, b));
+    }
+
+    /** As `apply`, for the operators other than EQUAL, answering the number unboxed. */
+    protected final double applyNum(double a, double b) throws InterpretationException {
+        return switch (operator) {
+            case ADD -> a + b;
+            case SUBTRACT -> a - b;
+            case MULTIPLY -> a * b;
+            case DIVIDE -> PrimOp.Kind.divide(a, b);
+            case EQUAL -> throw new IllegalStateException("= does not answer a number");
+        };
+    }
+
+    /** Compute the operator on arbitrary values by calling the primitive itself. */
+    protected final Value applyGeneric(Value a, Value b) throws InterpretationException {
+        return operator.kind().apply(a, b);
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        if (left == oldChild) left = newChild;
+        if (right == oldChild) right = newChild;
+    }
+}
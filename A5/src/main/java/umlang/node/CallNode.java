@@ -0,0 +1,50 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.errors.BadArgumentCount;
+import umlang.errors.InterpretationException;
+import umlang.value.VFn;
+import umlang.value.Value;
+
+/** A CallNode is a compiled `Call`. */
+public final class CallNode extends Node {
+    private final NodeInterpreter interpreter;
+    private Node fn;
+    private final Node[] args;
+    private final TargetCache target = new TargetCache();
+
+    public CallNode(NodeInterpreter interpreter, Node fn, Node[] args) {
+        this.interpreter = interpreter;
+        this.fn = adopt(fn);
+        this.args = adoptAll(args);
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        var callable = fn.execute(frame);
+        if (!(callable instanceof VFn f)) {
+            return interpreter.apply(callable, executeAll(args, frame));
+        }
+        // Arguments go straight into the callee's Frame, so numbers computed for them stay unboxed.
+        var env = executeInto(args, frame, f.env());
+        if (f.arity() != args.length) {
+            new BadArgumentCount(f.arity(), args.length).signal();
+        }
+        return target.root(interpreter, f.body()).execute(env);
+    }
+
+    /** Execute each of `nodes` in order, answering their values as an array. */
+    static Value[] executeAll(Node[] nodes, Frame frame) throws InterpretationException {
+        var values = new Value[nodes.length];
+        for (var i = 0; i < nodes.length; i++) {
+            values[i] = nodes[i].execute(frame);
+        }
+        return values;
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        if (fn == oldChild) fn = newChild;
+        replaceIn(args, oldChild, newChild);
+    }
+}
@@ -0,0 +1,27 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.value.VNum;
+import umlang.value.Value;
+
+/** A ConstNode answers a Value fixed at compile time: the value of a literal. */
+public final class ConstNode extends Node {
+    private final Value value;
+
+    public ConstNode(Value value) {
+        this.value = value;
+    }
+
+    @Override
+    public Value execute(Frame frame) {
+        return value;
+    }
+
+    @Override
+    public double executeNum(Frame frame) throws UnexpectedResult {
+        if (value instanceof VNum(var n)) {
+            return n;
+        }
+        throw new UnexpectedResult(value);
+    }
+}
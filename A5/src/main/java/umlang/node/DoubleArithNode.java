@@ -0,0 +1,61 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.errors.InterpretationException;
+import umlang.value.VNum;
+import umlang.value.Value;
+
+/**
+ * A DoubleArithNode assumes both operands are numbers, and computes on them directly. It asks its operands
+ * for unboxed numbers, so nested arithmetic only boxes its final result, and not even that when its parent
+ * also takes it unboxed.
+ */
+public final class DoubleArithNode extends ArithNode {
+    DoubleArithNode(ArithNode previous) {
+        super(previous);
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        if (isShadowed()) return executeAsCall(frame);
+        double x;
+        try {
+            x = left.executeNum(frame);
+        } catch (UnexpectedResult e) {
+            return generalize(e.result(), right.execute(frame));
+        }
+        try {
+            return apply(x, right.executeNum(frame));
+        } catch (UnexpectedResult e) {
+            return generalize(VNum.of(x), e.result());
+        }
+    }
+
+    @Override
+    public double executeNum(Frame frame) throws InterpretationException, UnexpectedResult {
+        if (!producesNum()) {
+            return super.executeNum(frame);
+        }
+        double x;
+        try {
+            x = left.executeNum(frame);
+        } catch (UnexpectedResult e) {
+            throw new UnexpectedResult(generalize(e.result(), right.execute(frame)));
+        }
+        try {
+            return applyNum(x, right.executeNum(frame));
+        } catch (UnexpectedResult e) {
+            throw new UnexpectedResult(generalize(VNum.of(x), e.result()));
+        }
+    }
+
+    @Override
+    public boolean producesNum() {
+        return operator != Operator.EQUAL && !isShadowed();
+    }
+
+    /** An operand was not a number: rewrite `this` into a GenericArithNode and apply it to the operands. */
+    private Value generalize(Value a, Value b) throws InterpretationException {
+        return replace(new GenericArithNode(this)).applyGeneric(a, b);
+    }
+}
@@ -0,0 +1,34 @@
+package umlang.node;
+
+import immutable.Cons;
+import syntax.AtomSymbol;
+import umlang.Frame;
+import umlang.ast.ExtendObj;
+import umlang.errors.InterpretationException;
+import umlang.value.VFn;
+import umlang.value.Value;
+
+/** An ExtendObjNode is a compiled `ExtendObj`. */
+public final class ExtendObjNode extends Node {
+    private static final AtomSymbol SELF = new AtomSymbol("self");
+
+    private final ExtendObj exp;
+    private Node base;
+
+    public ExtendObjNode(ExtendObj exp, Node base) {
+        this.exp = exp;
+        this.base = adopt(base);
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        var baseObj = base.execute(frame).asObj();
+        var method = new VFn(new Cons<>(SELF, exp.formals()), exp.body(), frame.capture(exp.captures()), exp.arity() + 1);
+        return baseObj.extend(exp.selector(), method);
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        if (base == oldChild) base = newChild;
+    }
+}
@@ -0,0 +1,20 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.ast.Fn;
+import umlang.value.VFn;
+import umlang.value.Value;
+
+/** A FnNode is a compiled `Fn`: it creates a closure over the free variables of `fn`. */
+public final class FnNode extends Node {
+    private final Fn fn;
+
+    public FnNode(Fn fn) {
+        this.fn = fn;
+    }
+
+    @Override
+    public Value execute(Frame frame) {
+        return new VFn(fn.formals(), fn.body(), frame.capture(fn.captures()), fn.arity());
+    }
+}
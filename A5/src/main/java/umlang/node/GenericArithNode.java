@@ -0,0 +1,18 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.errors.InterpretationException;
+import umlang.value.Value;
+
+/** A GenericArithNode makes no assumptions about its operands, and defers to the primitive. */
+public final class GenericArithNode extends ArithNode {
+    GenericArithNode(ArithNode previous) {
+        super(previous);
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        if (isShadowed()) return executeAsCall(frame);
+        return applyGeneric(left.execute(frame), right.execute(frame));
+    }
+}
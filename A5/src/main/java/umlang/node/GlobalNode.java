@@ -0,0 +1,20 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.GlobalCell;
+import umlang.errors.InterpretationException;
+import umlang.value.Value;
+
+/** A GlobalNode reads a global variable or primitive, straight from its GlobalCell. */
+public final class GlobalNode extends Node {
+    private final GlobalCell<Value> cell;
+
+    public GlobalNode(GlobalCell<Value> cell) {
+        this.cell = cell;
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        return cell.get();
+    }
+}
@@ -0,0 +1,30 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.errors.InterpretationException;
+import umlang.value.Value;
+
+/** An IfNode is a compiled `Conditional`. */
+public final class IfNode extends Node {
+    private Node test;
+    private Node ifTrue;
+    private Node ifFalse;
+
+    public IfNode(Node test, Node ifTrue, Node ifFalse) {
+        this.test = adopt(test);
+        this.ifTrue = adopt(ifTrue);
+        this.ifFalse = adopt(ifFalse);
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        return test.execute(frame).isTruthy() ? ifTrue.execute(frame) : ifFalse.execute(frame);
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        if (test == oldChild) test = newChild;
+        if (ifTrue == oldChild) ifTrue = newChild;
+        if (ifFalse == oldChild) ifFalse = newChild;
+    }
+}
@@ -0,0 +1,13 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.value.VObj;
+import umlang.value.Value;
+
+/** An InertObjNode is a compiled `InertObj`. */
+public final class InertObjNode extends Node {
+    @Override
+    public Value execute(Frame frame) {
+        return VObj.EMPTY;
+    }
+}
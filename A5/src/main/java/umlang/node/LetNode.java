@@ -0,0 +1,27 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.errors.InterpretationException;
+import umlang.value.Value;
+
+/** A LetNode is a compiled `Let`: it evaluates `inits` into one new Frame, then runs `body` in it. */
+public final class LetNode extends Node {
+    private final Node[] inits;
+    private Node body;
+
+    public LetNode(Node[] inits, Node body) {
+        this.inits = adoptAll(inits);
+        this.body = adopt(body);
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        return body.execute(executeInto(inits, frame, frame));
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        replaceIn(inits, oldChild, newChild);
+        if (body == oldChild) body = newChild;
+    }
+}
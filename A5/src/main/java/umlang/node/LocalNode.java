@@ -0,0 +1,34 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.value.VNum;
+import umlang.value.Value;
+
+/** A LocalNode reads a lexical variable; see `umlang.ast.LocalRef`. */
+public final class LocalNode extends Node {
+    private final int depth;
+    private final int index;
+
+    public LocalNode(int depth, int index) {
+        this.depth = depth;
+        this.index = index;
+    }
+
+    @Override
+    public Value execute(Frame frame) {
+        return frame.lookup(depth, index);
+    }
+
+    @Override
+    public double executeNum(Frame frame) throws UnexpectedResult {
+        var f = frame.ancestor(depth);
+        var v = f.slots()[index];
+        if (v == null) {
+            return f.numbers()[index];
+        }
+        if (v instanceof VNum(var n)) {
+            return n;
+        }
+        throw new UnexpectedResult(v);
+    }
+}
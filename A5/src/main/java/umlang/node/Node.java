@@ -0,0 +1,112 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.errors.InterpretationException;
+import umlang.value.VNum;
+import umlang.value.Value;
+
+/**
+ * A Node is one element of an executable tree built from a resolved `Exp` by NodeCompiler.
+ *
+ * Nodes may rewrite themselves while running: a node that learns something about the values it sees
+ * can `replace` itself in its parent with a more specialized node, and a specialized node whose
+ * assumption fails replaces itself with a more general one. See ArithNode.
+ */
+public abstract class Node {
+    private Node parent;
+
+    /** Compute the value of this node in `frame`. */
+    public abstract Value execute(Frame frame) throws InterpretationException;
+
+    /**
+     * Compute the value of this node in `frame` as an unboxed number, or throw UnexpectedResult holding
+     * the value if it is not a number. Nodes that can answer a number without boxing it override this.
+     */
+    public double executeNum(Frame frame) throws InterpretationException, UnexpectedResult {
+        var v = execute(frame);
+        if (v instanceof VNum(var n)) {
+            return n;
+        }
+        throw new UnexpectedResult(v);
+    }
+
+    /**
+     * True iff `executeNum` currently computes a fresh number without boxing it, so that storing it
+     * unboxed saves an allocation. Reads of existing values answer false: their VNum already exists.
+     */
+    public boolean producesNum() {
+        return false;
+    }
+
+    /**
+     * Execute each of `nodes` in order into the slots of a new Frame whose parent is `parent`. Numbers
+     * from nodes that `producesNum` are stored unboxed.
+     */
+    static Frame executeInto(Node[] nodes, Frame frame, Frame parent) throws InterpretationException {
+        return executeInto(null, nodes, frame, parent);
+    }
+
+    /** As above, but if `first` is not null, it goes in slot 0 and `nodes` fill the slots after it. */
+    static Frame executeInto(Value first, Node[] nodes, Frame frame, Frame parent) throws InterpretationException {
+        var offset = first == null ? 0 : 1;
+        var slots = new Value[nodes.length + offset];
+        if (first != null) {
+            slots[0] = first;
+        }
+        double[] numbers = null;
+        for (var i = 0; i < nodes.length; i++) {
+            var node = nodes[i];
+            if (!node.producesNum()) {
+                slots[i + offset] = node.execute(frame);
+                continue;
+            }
+            if (numbers == null) {
+                numbers = new double[slots.length];
+            }
+            try {
+                numbers[i + offset] = node.executeNum(frame);
+            } catch (UnexpectedResult e) {
+                slots[i + offset] = e.result();
+            }
+        }
+        return new Frame(slots, numbers, parent);
+    }
+
+    public Node parent() {
+        return parent;
+    }
+
+    /** Make `this` the parent of `child`, answering `child`. */
+    protected final <T extends Node> T adopt(T child) {
+        ((Node) child).parent = this;
+        return child;
+    }
+
+    /** Make `this` the parent of each of `children`, answering `children`. */
+    protected final Node[] adoptAll(Node[] children) {
+        for (var c : children) {
+            adopt(c);
+        }
+        return children;
+    }
+
+    /** Swap `replacement` into the position `this` occupies in its parent, answering `replacement`. */
+    protected final <T extends Node> T replace(T replacement) {
+        parent.replaceChild(this, parent.adopt(replacement));
+        return replacement;
+    }
+
+    /** Overridden by nodes whose children may be replaced. */
+    protected void replaceChild(Node oldChild, Node newChild) {
+        throw new IllegalStateException(getClass().getSimpleName() + " has no replaceable children");
+    }
+
+    /** Helper for `replaceChild` implementations with an array of children. */
+    protected static void replaceIn(Node[] children, Node oldChild, Node newChild) {
+        for (var i = 0; i < children.length; i++) {
+            if (children[i] == oldChild) {
+                children[i] = newChild;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package umlang.node;
+
+import java.util.ArrayList;
+
+import immutable.Cons;
+import immutable.List;
+import immutable.Nil;
+import umlang.ast.Bool;
+import umlang.ast.Call;
+import umlang.ast.CallMethod;
+import umlang.ast.Conditional;
+import umlang.ast.Exp;
+import umlang.ast.ExtendObj;
+import umlang.ast.Fn;
+import umlang.ast.GlobalRef;
+import umlang.ast.InertObj;
+import umlang.ast.Let;
+import umlang.ast.LocalRef;
+import umlang.ast.Num;
+import umlang.ast.PrimOp;
+import umlang.ast.Ref;
+import umlang.ast.Seq;
+import umlang.ast.Str;
+import umlang.ast.Throw;
+import umlang.ast.TryCatch;
+
+/**
+ * NodeCompiler only exists to hold the static method `compile`, which builds a Node tree from a
+ * resolved `Exp` (see `umlang.ast.Resolver`). Nested `Fn` and method bodies are compiled lazily,
+ * by NodeInterpreter, the first time they are called.
+ */
+public class NodeCompiler {
+    /** Build the Node tree for `exp`, to be run by `interpreter`. */
+    public static Node compile(Exp exp, NodeInterpreter interpreter) {
+        return switch (exp) {
+            case Ref(var name) -> new GlobalNode(interpreter.link(name));
+            case GlobalRef(var name, var cell) -> new GlobalNode(cell);
+            case LocalRef(var name, var depth, var index) -> new LocalNode(depth, index);
+            case Num n -> new ConstNode(n.constant());
+            case Bool b -> new ConstNode(b.constant());
+            case Str s -> new ConstNode(s.constant());
+            case Conditional(var test, var ifTrue, var ifFalse) ->
+                new IfNode(compile(test, interpreter), compile(ifTrue, interpreter), compile(ifFalse, interpreter));
+            case Let(var names, var inits, var body) ->
+                new LetNode(compileAll(inits, interpreter), compile(body, interpreter));
+            case Fn f -> new FnNode(f);
+            case PrimOp(var kind, Cons(var left, Cons(var right, Nil())), var cell)
+                when ArithNode.Operator.named(kind.symbol()) != null ->
+                new UninitializedArithNode(interpreter, ArithNode.Operator.named(kind.symbol()), cell,
+                    compile(left, interpreter), compile(right, interpreter));
+            case PrimOp(var kind, var args, var cell) ->
+                new PrimNode(interpreter, kind, cell, compileAll(args, interpreter));
+            case Call(Ref(var name), Cons(var left, Cons(var right, Nil())))
+                when ArithNode.Operator.named(name) != null ->
+                new UninitializedArithNode(interpreter, ArithNode.Operator.named(name), interpreter.link(name),
+                    compile(left, interpreter), compile(right, interpreter));
+            case Call(var fnExp, var args) ->
+                new CallNode(interpreter, compile(fnExp, interpreter), compileAll(args, interpreter));
+            case Seq(var exps) -> new SeqNode(compileAll(exps, interpreter));
+            case InertObj() -> new InertObjNode();
+            case ExtendObj e -> new ExtendObjNode(e, compile(e.base(), interpreter));
+            case CallMethod(var objExp, var selector, var args, var cache) ->
+                new SendNode(interpreter, compile(objExp, interpreter), selector, compileAll(args, interpreter), cache);
+            case Throw t -> new UnimplementedNode("Throw");
+            case TryCatch t -> new UnimplementedNode("TryCatch");
+        };
+    }
+
+    private static Node[] compileAll(List<Exp> exps, NodeInterpreter interpreter) {
+        var nodes = new ArrayList<Node>();
+        for (var e : exps) {
+            nodes.add(compile(e, interpreter));
+        }
+        return nodes.toArray(new Node[0]);
+    }
+}
@@ -0,0 +1,64 @@
+package umlang.node;
+
+import java.util.IdentityHashMap;
+
+import syntax.AtomSymbol;
+import umlang.Frame;
+import umlang.GlobalEnvironment;
+import umlang.Interpreter;
+import umlang.ast.Exp;
+import umlang.errors.ExpectedFn;
+import umlang.errors.InterpretationException;
+import umlang.value.VFn;
+import umlang.value.VPrim;
+import umlang.value.Value;
+
+/**
+ * A NodeInterpreter compiles `Exp`s to trees of self-specializing Nodes (see NodeCompiler) and runs those.
+ */
+public class NodeInterpreter extends Interpreter {
+    /** Compiled function and method bodies, keyed by the identity of the body `Exp`. */
+    private final IdentityHashMap<Exp, RootNode> bodies = new IdentityHashMap<>();
+
+    public NodeInterpreter() {
+        super();
+    }
+
+    public NodeInterpreter(GlobalEnvironment<Value> globals) {
+        super(globals);
+    }
+
+    @Override
+    public Interpreter fork() {
+        return new NodeInterpreter(globals());
+    }
+
+    @Override
+    public Value evaluate(Exp exp, Frame env) throws InterpretationException {
+        return new RootNode(NodeCompiler.compile(exp, this)).execute(env);
+    }
+
+    @Override
+    public Value callMethod(Value receiver, AtomSymbol selector, Value... arguments) throws InterpretationException {
+        return apply(receiver.asObj().lookup(selector), withReceiver(receiver, arguments));
+    }
+
+    @Override
+    public Value apply(Value callable, Value[] args) throws InterpretationException {
+        return switch (callable) {
+            case VFn fn -> root(fn.body()).execute(fn.enter(args));
+            case VPrim prim -> prim.call(this, args);
+            default -> new ExpectedFn(callable).signal();
+        };
+    }
+
+    /** Answer the (possibly cached) RootNode for the body of a function or method. */
+    RootNode root(Exp body) {
+        var root = bodies.get(body);
+        if (root == null) {
+            root = new RootNode(NodeCompiler.compile(body, this));
+            bodies.put(body, root);
+        }
+        return root;
+    }
+}
@@ -0,0 +1,43 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.GlobalCell;
+import umlang.ast.PrimOp;
+import umlang.errors.InterpretationException;
+import umlang.value.Value;
+
+/**
+ * A PrimNode is a compiled `PrimOp` other than the arithmetic ones (see ArithNode). It runs the
+ * primitive directly, until the primitive's name is declared as a global; then it rewrites itself
+ * into an ordinary CallNode.
+ */
+public final class PrimNode extends Node {
+    private final NodeInterpreter interpreter;
+    private final PrimOp.Kind kind;
+    private final GlobalCell<Value> cell;
+    private final Node[] args;
+
+    public PrimNode(NodeInterpreter interpreter, PrimOp.Kind kind, GlobalCell<Value> cell, Node[] args) {
+        this.interpreter = interpreter;
+        this.kind = kind;
+        this.cell = cell;
+        this.args = adoptAll(args);
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        if (cell.isDeclared()) {
+            return replace(new CallNode(interpreter, new GlobalNode(cell), args)).execute(frame);
+        }
+        if (args.length == 1) {
+            return kind.apply(args[0].execute(frame));
+        }
+        var a = args[0].execute(frame);
+        return kind.apply(a, args[1].execute(frame));
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        replaceIn(args, oldChild, newChild);
+    }
+}
@@ -0,0 +1,28 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.errors.InterpretationException;
+import umlang.value.Value;
+
+/** A RootNode is the top of a tree compiled from a function body, method body or toplevel expression. */
+public final class RootNode extends Node {
+    private Node body;
+
+    public RootNode(Node body) {
+        this.body = adopt(body);
+    }
+
+    public Node body() {
+        return body;
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        return body.execute(frame);
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        if (body == oldChild) body = newChild;
+    }
+}
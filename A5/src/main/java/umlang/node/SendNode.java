@@ -0,0 +1,46 @@
+package umlang.node;
+
+import syntax.AtomSymbol;
+import umlang.Frame;
+import umlang.errors.BadArgumentCount;
+import umlang.errors.InterpretationException;
+import umlang.value.InlineCache;
+import umlang.value.Value;
+
+/** A SendNode is a compiled `CallMethod`, finding its method through the call site's InlineCache. */
+public final class SendNode extends Node {
+    private final NodeInterpreter interpreter;
+    private Node receiver;
+    private final AtomSymbol selector;
+    private final Node[] args;
+    private final InlineCache cache;
+    private final TargetCache target = new TargetCache();
+
+    public SendNode(NodeInterpreter interpreter, Node receiver, AtomSymbol selector, Node[] args, InlineCache cache) {
+        this.interpreter = interpreter;
+        this.receiver = adopt(receiver);
+        this.selector = selector;
+        this.args = adoptAll(args);
+        this.cache = cache;
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        var r = receiver.execute(frame);
+        // The receiver and arguments go straight into the slots of the method's Frame, as in CallNode. The
+        // method is looked up after the arguments are evaluated, as in the other engines.
+        var values = executeInto(r, args, frame, null);
+        var method = cache.lookup(r.asObj(), selector);
+        var env = new Frame(values.slots(), values.numbers(), method.env());
+        if (method.arity() != args.length + 1) {
+            new BadArgumentCount(method.arity(), args.length + 1).signal();
+        }
+        return target.root(interpreter, method.body()).execute(env);
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        if (receiver == oldChild) receiver = newChild;
+        replaceIn(args, oldChild, newChild);
+    }
+}
@@ -0,0 +1,28 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.errors.InterpretationException;
+import umlang.value.Value;
+
+/** A SeqNode is a compiled `Seq`. */
+public final class SeqNode extends Node {
+    private final Node[] exps;
+
+    public SeqNode(Node[] exps) {
+        this.exps = adoptAll(exps);
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        var last = exps.length - 1;
+        for (var i = 0; i < last; i++) {
+            exps[i].execute(frame);
+        }
+        return exps[last].execute(frame);
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        replaceIn(exps, oldChild, newChild);
+    }
+}
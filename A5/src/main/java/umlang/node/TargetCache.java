@@ -0,0 +1,21 @@
+package umlang.node;
+
+import umlang.ast.Exp;
+
+/**
+ * A TargetCache pre-links a call site to the RootNode of the body it called last, so a monomorphic site
+ * skips NodeInterpreter's table of bodies. Sites that see several bodies fall back to the table.
+ */
+final class TargetCache {
+    private Exp body;
+    private RootNode root;
+
+    /** Answer the RootNode for `body`, as `interpreter.root(body)` would. */
+    RootNode root(NodeInterpreter interpreter, Exp body) {
+        if (body != this.body) {
+            root = interpreter.root(body);
+            this.body = body;
+        }
+        return root;
+    }
+}
@@ -0,0 +1,22 @@
+package umlang.node;
+
+import umlang.value.Value;
+
+/**
+ * Thrown by `Node.executeNum` when the node's value turns out not to be a number. It carries that value,
+ * already computed, so the caller can carry on with it rather than executing the node again.
+ */
+public final class UnexpectedResult extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Value result;
+
+    public UnexpectedResult(Value result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    public Value result() {
+        return result;
+    }
+}
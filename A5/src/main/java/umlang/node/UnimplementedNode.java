@@ -0,0 +1,18 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.value.Value;
+
+/** An UnimplementedNode stands in for a kind of `Exp` NodeInterpreter does not support yet. */
+public final class UnimplementedNode extends Node {
+    private final String what;
+
+    public UnimplementedNode(String what) {
+        this.what = what;
+    }
+
+    @Override
+    public Value execute(Frame frame) {
+        throw new RuntimeException("UNIMPLEMENTED " + what + " in umlang.node.NodeInterpreter");
+    }
+}
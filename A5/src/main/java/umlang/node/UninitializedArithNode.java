@@ -0,0 +1,25 @@
+package umlang.node;
+
+import umlang.Frame;
+import umlang.GlobalCell;
+import umlang.errors.InterpretationException;
+import umlang.value.VNum;
+import umlang.value.Value;
+
+/** An UninitializedArithNode has never run. It specializes itself on the first operands it sees. */
+public final class UninitializedArithNode extends ArithNode {
+    public UninitializedArithNode(NodeInterpreter interpreter, Operator operator, GlobalCell<Value> cell, Node left, Node right) {
+        super(interpreter, operator, cell, left, right);
+    }
+
+    @Override
+    public Value execute(Frame frame) throws InterpretationException {
+        if (isShadowed()) return executeAsCall(frame);
+        var a = left.execute(frame);
+        var b = right.execute(frame);
+        if (a instanceof VNum(var x) && b instanceof VNum(var y)) {
+            return replace(new DoubleArithNode(this)).apply(x, y);
+        }
+        return replace(new GenericArithNode(this)).applyGeneric(a, b);
+    }
+}
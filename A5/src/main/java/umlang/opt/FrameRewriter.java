@@ -0,0 +1,103 @@
+package umlang.opt;
+
+import umlang.ast.Call;
+import umlang.ast.CallMethod;
+import umlang.ast.Conditional;
+import umlang.ast.Exp;
+import umlang.ast.ExtendObj;
+import umlang.ast.Fn;
+import umlang.ast.Let;
+import umlang.ast.LocalRef;
+import umlang.ast.PrimOp;
+import umlang.ast.Seq;
+import umlang.ast.Throw;
+import umlang.ast.TryCatch;
+
+/**
+ * FrameRewriter holds static helpers for changing the layout of one frame, as seen by the `LocalRef`s
+ * addressing it. Throughout, `depth` is the number of frames between `exp` and the frame in question:
+ * it grows by one inside a `Let` body or `TryCatch` handler. `Fn` and method bodies are not entered,
+ * since they reach enclosing frames only through their `captures`.
+ */
+final class FrameRewriter {
+    private FrameRewriter() {}
+
+    /** Set `used[i]` for each slot i of the frame `depth` up from `exp` that `exp` refers to. */
+    static void markUsed(Exp exp, int depth, boolean[] used) {
+        switch (exp) {
+            case LocalRef(var name, var d, var index) -> {
+                if (d == depth) used[index] = true;
+            }
+            case Conditional(var test, var ifTrue, var ifFalse) -> {
+                markUsed(test, depth, used);
+                markUsed(ifTrue, depth, used);
+                markUsed(ifFalse, depth, used);
+            }
+            case Let(var names, var inits, var body) -> {
+                for (var i : inits) markUsed(i, depth, used);
+                markUsed(body, depth + 1, used);
+            }
+            case Fn(var formals, var body, var captures, var arity) -> {
+                for (var c : captures) markUsed(c, depth, used);
+            }
+            case Call(var fnExp, var args) -> {
+                markUsed(fnExp, depth, used);
+                for (var a : args) markUsed(a, depth, used);
+            }
+            case PrimOp(var kind, var args, var cell) -> {
+                for (var a : args) markUsed(a, depth, used);
+            }
+            case Seq(var exps) -> {
+                for (var e : exps) markUsed(e, depth, used);
+            }
+            case ExtendObj(var selector, var formals, var body, var base, var captures, var arity) -> {
+                for (var c : captures) markUsed(c, depth, used);
+                markUsed(base, depth, used);
+            }
+            case CallMethod(var objExp, var selector, var args, var cache) -> {
+                markUsed(objExp, depth, used);
+                for (var a : args) markUsed(a, depth, used);
+            }
+            case Throw(var exnExp) -> markUsed(exnExp, depth, used);
+            case TryCatch(var body, var exnVar, var handler) -> {
+                markUsed(body, depth, used);
+                markUsed(handler, depth + 1, used);
+            }
+            default -> {}
+        }
+    }
+
+    /**
+     * Rewrite `exp` for a change in the layout of the frame `depth` up from it: slot i moves to
+     * `newIndex[i]`, or, if `newIndex` is null, the frame is removed altogether (and must be unused).
+     */
+    static Exp renumber(Exp exp, int depth, int[] newIndex) {
+        return switch (exp) {
+            case LocalRef(var name, var d, var index) -> {
+                if (d < depth) yield exp;
+                if (newIndex == null) yield new LocalRef(name, d - 1, index);
+                yield d == depth ? new LocalRef(name, d, newIndex[index]) : exp;
+            }
+            case Conditional(var test, var ifTrue, var ifFalse) ->
+                new Conditional(renumber(test, depth, newIndex), renumber(ifTrue, depth, newIndex), renumber(ifFalse, depth, newIndex));
+            case Let(var names, var inits, var body) ->
+                new Let(names, inits.map((i) -> renumber(i, depth, newIndex)), renumber(body, depth + 1, newIndex));
+            case Fn(var formals, var body, var captures, var arity) ->
+                new Fn(formals, body, captures.map((c) -> (LocalRef) renumber(c, depth, newIndex)), arity);
+            case Call(var fnExp, var args) ->
+                new Call(renumber(fnExp, depth, newIndex), args.map((a) -> renumber(a, depth, newIndex)));
+            case PrimOp(var kind, var args, var cell) ->
+                new PrimOp(kind, args.map((a) -> renumber(a, depth, newIndex)), cell);
+            case Seq(var exps) -> new Seq(exps.map((e) -> renumber(e, depth, newIndex)));
+            case ExtendObj(var selector, var formals, var body, var base, var captures, var arity) ->
+                new ExtendObj(selector, formals, body, renumber(base, depth, newIndex),
+                    captures.map((c) -> (LocalRef) renumber(c, depth, newIndex)), arity);
+            case CallMethod(var objExp, var selector, var args, var cache) ->
+                new CallMethod(renumber(objExp, depth, newIndex), selector, args.map((a) -> renumber(a, depth, newIndex)), cache);
+            case Throw(var exnExp) -> new Throw(renumber(exnExp, depth, newIndex));
+            case TryCatch(var body, var exnVar, var handler) ->
+                new TryCatch(renumber(body, depth, newIndex), exnVar, renumber(handler, depth + 1, newIndex));
+            default -> exp;
+        };
+    }
+}
@@ -0,0 +1,227 @@
+package umlang.opt;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import immutable.Cons;
+import immutable.List;
+import syntax.AtomSymbol;
+import umlang.GlobalCell;
+import umlang.ast.Bool;
+import umlang.ast.Call;
+import umlang.ast.CallMethod;
+import umlang.ast.Conditional;
+import umlang.ast.Exp;
+import umlang.ast.ExtendObj;
+import umlang.ast.Fn;
+import umlang.ast.GlobalRef;
+import umlang.ast.InertObj;
+import umlang.ast.Let;
+import umlang.ast.LocalRef;
+import umlang.ast.Num;
+import umlang.ast.PrimOp;
+import umlang.ast.Ref;
+import umlang.ast.Seq;
+import umlang.ast.Str;
+import umlang.ast.Throw;
+import umlang.ast.TryCatch;
+import umlang.errors.InterpretationException;
+import umlang.value.VBool;
+import umlang.value.VNum;
+import umlang.value.Value;
+
+/**
+ * An Optimizer rewrites resolved and linked `Exp`s (see `umlang.ast.Resolver`) into cheaper equivalent ones.
+ * It works bottom-up, in a single traversal, applying each enabled Pass wherever it fits, and counts
+ * how many times each Pass has fired.
+ *
+ * Constant folding assumes that a primitive name undeclared when the code is optimized stays so: code
+ * optimized before a later redefinition of, say, `+` keeps the results folded with the primitive.
+ */
+public final class Optimizer {
+    /** The rewrites an Optimizer can perform. */
+    public enum Pass {
+        /** `{+ 1 2}` becomes `3`, for the primitives `+ - * / =` applied to literals. Division by zero is left alone. */
+        CONSTANT_FOLDING,
+        /** `{if #t a b}` becomes `a`, and `{if #f a b}` becomes `b`. */
+        DEAD_BRANCH_ELIMINATION,
+        /** A `seq` nested directly in another is spliced into it. */
+        SEQ_FLATTENING,
+        /** Pure expressions other than the last are dropped from a `seq`. */
+        PURE_SEQ_ELIMINATION,
+        /** `let` bindings with pure initializers that the body never refers to are dropped, as is a `let` left with none. */
+        UNUSED_LET_ELIMINATION
+    }
+
+    private final Set<Pass> enabled;
+    private final EnumMap<Pass, Integer> counts = new EnumMap<>(Pass.class);
+
+    /** An Optimizer performing every Pass. */
+    public Optimizer() {
+        this(EnumSet.allOf(Pass.class));
+    }
+
+    /** An Optimizer performing just the given passes. */
+    public Optimizer(Set<Pass> enabled) {
+        this.enabled = EnumSet.noneOf(Pass.class);
+        this.enabled.addAll(enabled);
+        for (var p : Pass.values()) {
+            counts.put(p, 0);
+        }
+    }
+
+    /** Answer the number of times `pass` has rewritten something. */
+    public int count(Pass pass) {
+        return counts.get(pass);
+    }
+
+    /** Answer a snapshot of the counts of every Pass. */
+    public Map<Pass, Integer> counts() {
+        return new EnumMap<>(counts);
+    }
+
+    /** Answer an optimized equivalent of `exp`. */
+    public Exp optimize(Exp exp) {
+        return switch (exp) {
+            case Ref r -> r;
+            case GlobalRef r -> r;
+            case LocalRef r -> r;
+            case Num n -> n;
+            case Bool b -> b;
+            case Str s -> s;
+            case Conditional(var test, var ifTrue, var ifFalse) -> {
+                var t = optimize(test);
+                if (t instanceof Bool(var b) && fire(Pass.DEAD_BRANCH_ELIMINATION)) {
+                    yield optimize(b ? ifTrue : ifFalse);
+                }
+                yield new Conditional(t, optimize(ifTrue), optimize(ifFalse));
+            }
+            case Let(var names, var inits, var body) -> let(names, inits.map(this::optimize), optimize(body));
+            case Fn(var formals, var body, var captures, var arity) -> new Fn(formals, optimize(body), captures, arity);
+            case Call(var fnExp, var args) -> new Call(optimize(fnExp), args.map(this::optimize));
+            case PrimOp(var kind, var args, var cell) -> fold(kind, args.map(this::optimize), cell);
+            case Seq(var exps) -> seq(exps);
+            case InertObj o -> o;
+            case ExtendObj(var selector, var formals, var body, var base, var captures, var arity) ->
+                new ExtendObj(selector, formals, optimize(body), optimize(base), captures, arity);
+            case CallMethod(var objExp, var selector, var args, var cache) ->
+                new CallMethod(optimize(objExp), selector, args.map(this::optimize), cache);
+            case Throw(var exnExp) -> new Throw(optimize(exnExp));
+            case TryCatch(var body, var exnVar, var handler) -> new TryCatch(optimize(body), exnVar, optimize(handler));
+        };
+    }
+
+    /** True iff `pass` is enabled, in which case it is counted as having fired. */
+    private boolean fire(Pass pass) {
+        if (!enabled.contains(pass)) {
+            return false;
+        }
+        counts.merge(pass, 1, Integer::sum);
+        return true;
+    }
+
+    /** True iff evaluating `exp` can have no effect, signal no error, and not fail to terminate. */
+    static boolean isPure(Exp exp) {
+        return switch (exp) {
+            case Num n -> true;
+            case Bool b -> true;
+            case Str s -> true;
+            case LocalRef r -> true;
+            case Fn f -> true;
+            case InertObj o -> true;
+            default -> false;
+        };
+    }
+
+    private Exp fold(PrimOp.Kind kind, List<Exp> args, GlobalCell<Value> cell) {
+        var foldable = switch (kind) {
+            case ADD, SUBTRACT, MULTIPLY, DIVIDE, EQUAL -> !cell.isDeclared();
+            default -> false;
+        };
+        if (foldable
+                && args instanceof Cons(var left, Cons(var right, var ignored))
+                && literal(left) instanceof Value a
+                && literal(right) instanceof Value b) {
+            try {
+                var result = switch (kind.apply(a, b)) {
+                    case VNum(var n) -> new Num(n);
+                    case VBool(var v) -> new Bool(v);
+                    default -> null;
+                };
+                if (result != null && fire(Pass.CONSTANT_FOLDING)) {
+                    return result;
+                }
+            } catch (InterpretationException e) {
+                // Leave it to signal the error at runtime.
+            }
+        }
+        return new PrimOp(kind, args, cell);
+    }
+
+    /** Answer the Value of literal `exp`, or null if it is not a literal. */
+    private static Value literal(Exp exp) {
+        return switch (exp) {
+            case Num n -> n.constant();
+            case Bool b -> b.constant();
+            case Str s -> s.constant();
+            default -> null;
+        };
+    }
+
+    private Exp seq(Cons<Exp> exps) {
+        var flat = new ArrayList<Exp>();
+        for (var e : exps) {
+            var o = optimize(e);
+            if (o instanceof Seq(var inner) && fire(Pass.SEQ_FLATTENING)) {
+                inner.appendTo(flat);
+            } else {
+                flat.add(o);
+            }
+        }
+        var kept = new ArrayList<Exp>();
+        for (var i = 0; i < flat.size(); i++) {
+            var e = flat.get(i);
+            if (i == flat.size() - 1 || !isPure(e) || !fire(Pass.PURE_SEQ_ELIMINATION)) {
+                kept.add(e);
+            }
+        }
+        return kept.size() == 1 ? kept.get(0) : new Seq((Cons<Exp>) List.fromList(kept));
+    }
+
+    private Exp let(List<AtomSymbol> names, List<Exp> inits, Exp body) {
+        if (!enabled.contains(Pass.UNUSED_LET_ELIMINATION)) {
+            return new Let(names, inits, body);
+        }
+        var used = new boolean[names.length()];
+        FrameRewriter.markUsed(body, 0, used);
+
+        var allNames = new ArrayList<AtomSymbol>();
+        var allInits = new ArrayList<Exp>();
+        names.appendTo(allNames);
+        inits.appendTo(allInits);
+
+        var keptNames = new ArrayList<AtomSymbol>();
+        var keptInits = new ArrayList<Exp>();
+        var newIndex = new int[used.length];
+        for (var i = 0; i < used.length; i++) {
+            if (used[i] || !isPure(allInits.get(i))) {
+                newIndex[i] = keptNames.size();
+                keptNames.add(allNames.get(i));
+                keptInits.add(allInits.get(i));
+            } else {
+                newIndex[i] = -1;
+                fire(Pass.UNUSED_LET_ELIMINATION);
+            }
+        }
+        if (keptNames.isEmpty()) {
+            return FrameRewriter.renumber(body, 0, null);
+        }
+        if (keptNames.size() == used.length) {
+            return new Let(names, inits, body);
+        }
+        return new Let(List.fromList(keptNames), List.fromList(keptInits), FrameRewriter.renumber(body, 0, newIndex));
+    }
+}
@@ -0,0 +1,14 @@
+package umlang.value;
+
+import umlang.errors.InterpretationException;
+
+/**
+ * A Caller is what a HigherOrderPrim calls umlang functions through: the Interpreter running it.
+ */
+public interface Caller {
+    /** Call the function value `fn` with `args`, signalling ExpectedFn if it is not one. */
+    Value apply(Value fn, Value[] args) throws InterpretationException;
+
+    /** Answer a new Caller, sharing this one's globals, to call functions with on another thread. */
+    Caller fork();
+}
@@ -0,0 +1,17 @@
+package umlang.value;
+
+import umlang.errors.InterpretationException;
+
+/**
+ * A HigherOrderPrim is a Prim that calls umlang functions among its arguments. Interpreters pass it
+ * themselves as the Caller to do so.
+ */
+@FunctionalInterface
+public interface HigherOrderPrim extends Prim {
+    Value apply(Caller caller, Value[] args) throws InterpretationException;
+
+    @Override
+    default Value apply(Value[] args) {
+        throw new IllegalStateException("A higher-order primitive needs a Caller");
+    }
+}
@@ -0,0 +1,111 @@
+package umlang.value;
+
+import java.util.Arrays;
+
+import syntax.AtomSymbol;
+import umlang.errors.InterpretationException;
+import umlang.errors.MethodNotFound;
+
+/**
+ * An InlineCache remembers the results of method lookups at one `CallMethod` site, keyed on the
+ * receiver's Shape: each entry maps a Shape to the slot holding the method. It holds up to
+ * POLYMORPHIC_LIMIT entries; a site that sees more shapes than that is megamorphic, and consults a
+ * single global cache shared by all such sites.
+ *
+ * All InlineCaches are equal to one another: a cache is an optimization, not part of the meaning of an `Exp`.
+ *
+ * A site may be run by several threads at once, when interpreters share globals. Each entry is an
+ * immutable record, so a reader sees either no entry or a whole one; a racing update may at worst lose an
+ * entry, which the next miss puts back.
+ */
+public final class InlineCache {
+    public static final int POLYMORPHIC_LIMIT = 4;
+
+    private record Entry(Shape shape, int slot) {}
+
+    private final Entry[] entries = new Entry[POLYMORPHIC_LIMIT];
+    private int size = 0;
+    private boolean megamorphic = false;
+    private int selectorId = -1;
+
+    /** Answer the method `receiver` responds to `selector` with, signalling MethodNotFound if there is none. */
+    public VFn lookup(VObj receiver, AtomSymbol selector) throws InterpretationException {
+        var shape = receiver.shape();
+        for (var i = 0; i < size; i++) {
+            var e = entries[i];
+            if (e != null && e.shape() == shape) {
+                return receiver.slots()[e.slot()];
+            }
+        }
+        if (selectorId < 0) {
+            selectorId = Selector.id(selector);
+        }
+        if (megamorphic) {
+            return receiver.slots()[Megamorphic.lookup(shape, selectorId, selector)];
+        }
+        var slot = shape.slotOf(selectorId);
+        if (slot < 0) {
+            return new MethodNotFound(selector).signal();
+        }
+        var n = size;
+        if (n < POLYMORPHIC_LIMIT) {
+            entries[n] = new Entry(shape, slot);
+            size = n + 1;
+        } else {
+            megamorphic = true;
+            size = 0;
+            Arrays.fill(entries, null);
+        }
+        return receiver.slots()[slot];
+    }
+
+    /** True iff this site has given up on its own entries in favour of the global cache. */
+    public boolean isMegamorphic() {
+        return megamorphic;
+    }
+
+    /** Answer the number of shapes this site currently has entries for. */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof InlineCache;
+    }
+
+    @Override
+    public int hashCode() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "#<InlineCache>";
+    }
+
+    /**
+     * The global cache for megamorphic sites: a direct-mapped table of (shape, selector ID, slot)
+     * entries. Each entry is immutable, so concurrent readers see either an old entry or a new one.
+     */
+    private static final class Megamorphic {
+        private record Entry(Shape shape, int selectorId, int slot) {}
+
+        private static final int SIZE = 1024;
+        private static final Entry[] entries = new Entry[SIZE];
+
+        static int lookup(Shape shape, int selectorId, AtomSymbol selector) throws InterpretationException {
+            var index = (System.identityHashCode(shape) * 31 + selectorId) & (SIZE - 1);
+            var e = entries[index];
+            if (e != null && e.shape() == shape && e.selectorId() == selectorId) {
+                return e.slot();
+            }
+            var slot = shape.slotOf(selectorId);
+            if (slot < 0) {
+                return new MethodNotFound(selector).signal();
+            }
+            entries[index] = new Entry(shape, selectorId, slot);
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package umlang.value;
+
+import umlang.errors.InterpretationException;
+
+/**
+ * A Prim is the Java-language method behind a VPrim, taking its arguments as an array whose length VPrim
+ * has already checked. Prim0 to Prim3 are the fixed-arity forms primitives are usually written in; callers
+ * that know how many arguments they have can use those directly, without building an array.
+ */
+@FunctionalInterface
+public interface Prim {
+    Value apply(Value[] args) throws InterpretationException;
+}
@@ -0,0 +1,14 @@
+package umlang.value;
+
+import umlang.errors.InterpretationException;
+
+/** A Prim0 is a Prim of no arguments. */
+@FunctionalInterface
+public interface Prim0 extends Prim {
+    Value apply() throws InterpretationException;
+
+    @Override
+    default Value apply(Value[] args) throws InterpretationException {
+        return apply();
+    }
+}
@@ -0,0 +1,14 @@
+package umlang.value;
+
+import umlang.errors.InterpretationException;
+
+/** A Prim1 is a Prim of one argument. */
+@FunctionalInterface
+public interface Prim1 extends Prim {
+    Value apply(Value a) throws InterpretationException;
+
+    @Override
+    default Value apply(Value[] args) throws InterpretationException {
+        return apply(args[0]);
+    }
+}
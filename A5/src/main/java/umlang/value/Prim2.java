@@ -0,0 +1,14 @@
+package umlang.value;
+
+import umlang.errors.InterpretationException;
+
+/** A Prim2 is a Prim of two arguments. */
+@FunctionalInterface
+public interface Prim2 extends Prim {
+    Value apply(Value a, Value b) throws InterpretationException;
+
+    @Override
+    default Value apply(Value[] args) throws InterpretationException {
+        return apply(args[0], args[1]);
+    }
+}
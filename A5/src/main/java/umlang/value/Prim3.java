@@ -0,0 +1,14 @@
+package umlang.value;
+
+import umlang.errors.InterpretationException;
+
+/** A Prim3 is a Prim of three arguments. */
+@FunctionalInterface
+public interface Prim3 extends Prim {
+    Value apply(Value a, Value b, Value c) throws InterpretationException;
+
+    @Override
+    default Value apply(Value[] args) throws InterpretationException {
+        return apply(args[0], args[1], args[2]);
+    }
+}
@@ -0,0 +1,35 @@
+package umlang.value;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+import syntax.AtomSymbol;
+
+/**
+ * Selector interns method selectors to dense integer IDs, numbered from 0 in order of first use.
+ * Shapes map these IDs to slots.
+ */
+public final class Selector {
+    private static final ConcurrentHashMap<AtomSymbol, Integer> ids = new ConcurrentHashMap<>();
+    private static final ArrayList<AtomSymbol> names = new ArrayList<>();
+
+    private Selector() {}
+
+    /** Answer the ID of `selector`, assigning a fresh one on first use. */
+    public static int id(AtomSymbol selector) {
+        var id = ids.get(selector);
+        return id != null ? id : assign(selector);
+    }
+
+    private static synchronized int assign(AtomSymbol selector) {
+        return ids.computeIfAbsent(selector, (s) -> {
+            names.add(s);
+            return names.size() - 1;
+        });
+    }
+
+    /** Answer the selector with the given `id`. */
+    public static synchronized AtomSymbol name(int id) {
+        return names.get(id);
+    }
+}
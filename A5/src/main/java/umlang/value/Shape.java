@@ -0,0 +1,98 @@
+package umlang.value;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A Shape is the hidden class of a VObj: an immutable map from selector IDs (see Selector) to slots in
+ * the object's method array. Shapes form a tree rooted at EMPTY; extending an object with a new selector
+ * follows (or creates) a transition to a child shape, so objects built by the same `obj` expression share
+ * one Shape. Extending with a selector the shape already has keeps the shape and replaces the slot.
+ */
+public final class Shape {
+    public static final Shape EMPTY = new Shape(new int[0]);
+
+    /** Shapes with at most this many selectors find slots by scanning `selectors`; larger ones hash. */
+    private static final int MAX_LINEAR = 8;
+
+    private final int[] selectors;
+    /**
+     * For shapes larger than MAX_LINEAR, an open-addressing table, with linear probing, of the slots of
+     * `selectors`, hashed by selector ID, with -1 in empty entries; null for smaller shapes. It has at
+     * least twice as many entries as there are selectors, so its size depends only on theirs, and not on
+     * how large the (process-wide, ever-growing) selector IDs are.
+     */
+    private final int[] table;
+    private final ConcurrentHashMap<Integer, Shape> transitions = new ConcurrentHashMap<>();
+
+    private Shape(int[] selectors) {
+        this.selectors = selectors;
+        if (selectors.length <= MAX_LINEAR) {
+            this.table = null;
+        } else {
+            this.table = new int[Integer.highestOneBit(selectors.length) * 4];
+            Arrays.fill(table, -1);
+            var mask = table.length - 1;
+            for (var slot = 0; slot < selectors.length; slot++) {
+                var i = hash(selectors[slot]) & mask;
+                while (table[i] >= 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = slot;
+            }
+        }
+    }
+
+    private static int hash(int selectorId) {
+        var h = selectorId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Answer the slot holding the method for `selectorId`, or -1 if there is none. */
+    public int slotOf(int selectorId) {
+        if (table == null) {
+            for (var slot = 0; slot < selectors.length; slot++) {
+                if (selectors[slot] == selectorId) return slot;
+            }
+            return -1;
+        }
+        var mask = table.length - 1;
+        for (var i = hash(selectorId) & mask; table[i] >= 0; i = (i + 1) & mask) {
+            if (selectors[table[i]] == selectorId) return table[i];
+        }
+        return -1;
+    }
+
+    /** Answer the number of slots an object of this shape has. */
+    public int size() {
+        return selectors.length;
+    }
+
+    /** Answer the selector ID stored in `slot`. */
+    public int selector(int slot) {
+        return selectors[slot];
+    }
+
+    /** Answer the shape of an object of this shape extended with `selectorId`. */
+    public Shape with(int selectorId) {
+        if (slotOf(selectorId) >= 0) {
+            return this;
+        }
+        var next = transitions.get(selectorId);
+        if (next == null) {
+            var extended = Arrays.copyOf(selectors, selectors.length + 1);
+            extended[selectors.length] = selectorId;
+            next = transitions.computeIfAbsent(selectorId, (s) -> new Shape(extended));
+        }
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        var names = new StringBuilder("#<Shape");
+        for (var s : selectors) {
+            names.append(' ').append(Selector.name(s));
+        }
+        return names.append('>').toString();
+    }
+}
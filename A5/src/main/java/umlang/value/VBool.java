@@ -1,6 +1,15 @@
 package umlang.value;
 
 /**
- * A VBool is a boolean value.
+ * A VBool is a boolean value. Interpreters use the canonical `TRUE` and `FALSE` (see `of`) rather than
+ * allocating, though any VBool equals the canonical one with the same value.
  */
-public record VBool(boolean value) implements Value {}
\ No newline at end of file
+public record VBool(boolean value) implements Value {
+    public static final VBool TRUE = new VBool(true);
+    public static final VBool FALSE = new VBool(false);
+
+    /** Answer the canonical VBool for `value`. */
+    public static VBool of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+}
@@ -2,15 +2,31 @@ package umlang.value;
 
 import immutable.List;
 import syntax.AtomSymbol;
-import umlang.Environment;
+import umlang.Frame;
 import umlang.ast.Exp;
+import umlang.errors.BadArgumentCount;
+import umlang.errors.InterpretationException;
 
 /**
- * A VFn is an umlang-implemented function value.
+ * A VFn is an umlang-implemented function value. Its `arity`, the length of `formals`, is taken from the
+ * Fn or ExtendObj that made it, which computed it once, so neither making nor calling it walks the list.
  */
-public record VFn(List<AtomSymbol> formals, Exp body, Environment<Value> env) implements Value {
+public record VFn(List<AtomSymbol> formals, Exp body, Frame env, int arity) implements Value {
+    /** A VFn whose arity is computed from `formals`. */
+    public VFn(List<AtomSymbol> formals, Exp body, Frame env) {
+        this(formals, body, env, formals.length());
+    }
+
     @Override
     public boolean isStructuralEquivalenceAppropriate() {
         return false;
     }
-}
\ No newline at end of file
+
+    /** Check `args` against `arity`, and answer the Frame the body runs in, whose slots are `args` itself. */
+    public Frame enter(Value[] args) throws InterpretationException {
+        if (arity != args.length) {
+            new BadArgumentCount(arity, args.length).signal();
+        }
+        return new Frame(args, env);
+    }
+}
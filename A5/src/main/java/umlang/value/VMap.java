@@ -0,0 +1,144 @@
+package umlang.value;
+
+import java.util.ArrayList;
+
+/**
+ * A VMap is a MUTABLE hash table from keys to values, by open addressing with linear probing.
+ *
+ * Keys for which structural equivalence is appropriate (see Value.isStructuralEquivalenceAppropriate),
+ * such as numbers and strings, are the same key when they are equal; any other key, such as a cell, a
+ * vector or a function, is only ever the same key as itself. Unlike `=`, then, a map tells a vector
+ * apart from a copy of it, which is what lets it hash vectors whose contents later change.
+ *
+ * Like a VCell, a VMap itself is compared by pointer-identity.
+ */
+public final class VMap implements Value {
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** The table: slot i holds a key and its value, or null in both if it is empty. Its length is a power of 2. */
+    private Value[] keys = new Value[INITIAL_CAPACITY];
+    private Value[] values = new Value[INITIAL_CAPACITY];
+    private int size = 0;
+
+    public int size() {
+        return size;
+    }
+
+    /** Retrieve the value of `key`, or null if it has none. */
+    public Value get(Value key) {
+        var i = find(keys, key);
+        return keys[i] == null ? null : values[i];
+    }
+
+    /** Make `value` the value of `key`. Return its old value, or null if it had none. */
+    public Value put(Value key, Value value) {
+        var i = find(keys, key);
+        if (keys[i] != null) {
+            var old = values[i];
+            values[i] = value;
+            return old;
+        }
+        keys[i] = key;
+        values[i] = value;
+        // Keep the table at most half full, so that probe sequences stay short.
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return null;
+    }
+
+    /** Remove `key` and its value. Return the value, or null if it had none. */
+    public Value remove(Value key) {
+        var mask = keys.length - 1;
+        var i = find(keys, key);
+        if (keys[i] == null) return null;
+        var old = values[i];
+        // Backward-shift deletion: move later keys of the probe sequence into the hole, so there are no tombstones.
+        var hole = i;
+        for (var j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            var home = hash(keys[j]) & mask;
+            // Move the key at j into the hole unless its home lies cyclically in (hole, j].
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        size--;
+        return old;
+    }
+
+    /** Answer the keys, in no particular order. */
+    public Value[] keys() {
+        var out = new ArrayList<Value>(size);
+        for (var k : keys) {
+            if (k != null) out.add(k);
+        }
+        return out.toArray(new Value[0]);
+    }
+
+    /** Answer the key-value pairs as alternating elements, in no particular order. */
+    public Value[] entries() {
+        var out = new Value[size * 2];
+        var n = 0;
+        for (var i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                out[n++] = keys[i];
+                out[n++] = values[i];
+            }
+        }
+        return out;
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldValues = values;
+        keys = new Value[oldKeys.length * 2];
+        values = new Value[oldKeys.length * 2];
+        for (var i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                var j = find(keys, oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /** Answer the slot of `table` holding `key`, or else the empty slot where it belongs. */
+    private static int find(Value[] table, Value key) {
+        var mask = table.length - 1;
+        var i = hash(key) & mask;
+        while (table[i] != null && !sameKey(table[i], key)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /** The hash of `key`, consistent with sameKey, and spread so that nearby numbers land far apart. */
+    private static int hash(Value key) {
+        var h = switch (key) {
+            case VNum(var n) -> Double.hashCode(n);
+            case VStr s -> s.hashCode();
+            default -> key.isStructuralEquivalenceAppropriate() ? key.hashCode() : System.identityHashCode(key);
+        };
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** True iff `a` and `b` are the same key. */
+    private static boolean sameKey(Value a, Value b) {
+        if (a == b) return true;
+        return switch (a) {
+            case VNum(var m) -> b instanceof VNum(var n) && Double.compare(m, n) == 0;
+            case VStr s -> s.equals(b);
+            default -> a.isStructuralEquivalenceAppropriate() && b.isStructuralEquivalenceAppropriate() && a.equals(b);
+        };
+    }
+
+    @Override
+    public boolean isStructuralEquivalenceAppropriate() {
+        return false;
+    }
+}
@@ -2,5 +2,48 @@ package umlang.value;
 
 /**
  * A VNum is a number value.
+ *
+ * `of` shares one VNum for each integer in a small range, so counters, indices and the results of
+ * `display` and friends need not allocate. The environment variable UMLANG_NUM_CACHE sets the range
+ * as "low:high" (default "-128:1023"); an empty range disables the cache. A malformed setting is ignored
+ * in favour of the default, and the range is cut off after MAX_CACHE numbers.
  */
-public record VNum(double value) implements Value {}
\ No newline at end of file
+public record VNum(double value) implements Value {
+    private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+    private static final int MAX_CACHE = 1 << 16;
+    private static final int LOW;
+    private static final VNum[] CACHE;
+    static {
+        var bounds = cacheBounds(System.getenv("UMLANG_NUM_CACHE"));
+        LOW = bounds[0];
+        CACHE = new VNum[(int) Math.min(MAX_CACHE, Math.max(0, (long) bounds[1] - LOW + 1))];
+        for (var i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new VNum(LOW + i);
+        }
+    }
+
+    /** Answer the low and high ends of the cached range `envvar` sets, or the default if it is null or malformed. */
+    private static int[] cacheBounds(String envvar) {
+        if (envvar != null) {
+            var bounds = envvar.split(":", -1);
+            try {
+                if (bounds.length == 2) {
+                    return new int[] { Integer.parseInt(bounds[0].trim()), Integer.parseInt(bounds[1].trim()) };
+                }
+            } catch (NumberFormatException e) {
+                // Fall back to the default.
+            }
+        }
+        return new int[] { -128, 1023 };
+    }
+
+    /** Answer a VNum for `value`, shared if `value` is an integer in the cached range. */
+    public static VNum of(double value) {
+        var i = (int) value - LOW;
+        // -0.0 is not equal to 0.0 as a VNum, so it is never cached.
+        if (i >= 0 && i < CACHE.length && i + LOW == value && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO) {
+            return CACHE[i];
+        }
+        return new VNum(value);
+    }
+}
@@ -1,22 +1,80 @@
 package umlang.value;
 
+import java.util.Arrays;
+
+import immutable.Cons;
+import immutable.List;
 import syntax.AtomSymbol;
+import umlang.Entry;
 import umlang.Environment;
 import umlang.errors.InterpretationException;
 import umlang.errors.MethodNotFound;
 
 /**
- * A VObj is an object with a collection of available methods.
- * Methods are searched left-to-right.
+ * A VObj is an object with a collection of available methods: a Shape mapping selectors to
+ * slots, and the methods in those slots. Extending an object with a selector it already has
+ * overrides that method.
  */
-public record VObj(Environment<VFn> methods) implements Value {
+public record VObj(Shape shape, VFn[] slots) implements Value {
+    /** The object with no methods at all. */
+    public static final VObj EMPTY = new VObj(Shape.EMPTY, new VFn[0]);
+
+    /** Build an object from `methods`, which are searched left-to-right. */
+    public VObj(Environment<VFn> methods) {
+        this(EMPTY.extendAll(methods.entries()));
+    }
+
+    private VObj(VObj built) {
+        this(built.shape, built.slots);
+    }
+
+    private VObj extendAll(List<Entry<VFn>> entries) {
+        return switch (entries) {
+            case Cons<Entry<VFn>>(var first, var rest) -> extendAll(rest).extend(first.name(), first.value());
+            default -> this;
+        };
+    }
+
+    /** Answer `this`, but extended with (or overriding) `selector` as `method`. */
+    public VObj extend(AtomSymbol selector, VFn method) {
+        var id = Selector.id(selector);
+        var next = shape.with(id);
+        var extended = Arrays.copyOf(slots, next.size());
+        extended[next.slotOf(id)] = method;
+        return new VObj(next, extended);
+    }
+
     public VFn lookup(AtomSymbol selector) throws InterpretationException {
-        return methods.lookup(selector).valueOr(() ->
-            new MethodNotFound(selector).signal());
+        var slot = shape.slotOf(Selector.id(selector));
+        return slot >= 0 ? slots[slot] : new MethodNotFound(selector).signal();
+    }
+
+    /** Answer the methods of `this` as an Environment, most recently added first. */
+    public Environment<VFn> methods() {
+        List<Entry<VFn>> entries = List.empty();
+        for (var i = 0; i < slots.length; i++) {
+            entries = new Cons<>(new Entry<>(Selector.name(shape.selector(i)), slots[i]), entries);
+        }
+        return new Environment<>(entries);
     }
 
     @Override
     public boolean isStructuralEquivalenceAppropriate() {
         return false;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof VObj o && shape == o.shape && Arrays.equals(slots, o.slots);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(shape) * 31 + Arrays.hashCode(slots);
+    }
+
+    @Override
+    public String toString() {
+        return "VObj[" + methods() + "]";
+    }
+}
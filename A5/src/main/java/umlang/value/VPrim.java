@@ -1,11 +1,45 @@
 package umlang.value;
 
-import immutable.List;
-import immutable.ThrowingFunction;
+import umlang.errors.BadArgumentCount;
 import umlang.errors.InterpretationException;
 
 /**
  * A VPrim is a function value backed by a Java-language method.
  * The `arity` is the number of arguments the primitive expects.
  */
-public record VPrim(int arity, ThrowingFunction<List<Value>, Value, InterpretationException> proc) implements Value {}
\ No newline at end of file
+public record VPrim(int arity, Prim proc) implements Value {
+    public VPrim(Prim0 proc) {
+        this(0, proc);
+    }
+
+    public VPrim(Prim1 proc) {
+        this(1, proc);
+    }
+
+    public VPrim(Prim2 proc) {
+        this(2, proc);
+    }
+
+    public VPrim(Prim3 proc) {
+        this(3, proc);
+    }
+
+    /** Call the primitive with `args`, signalling BadArgumentCount if there are the wrong number. */
+    public Value call(Value[] args) throws InterpretationException {
+        if (arity != args.length) {
+            new BadArgumentCount(arity, args.length).signal();
+        }
+        return proc.apply(args);
+    }
+
+    /** As call(Value[]), giving a HigherOrderPrim `caller` to call functions through. */
+    public Value call(Caller caller, Value[] args) throws InterpretationException {
+        if (proc instanceof HigherOrderPrim p) {
+            if (arity != args.length) {
+                new BadArgumentCount(arity, args.length).signal();
+            }
+            return p.apply(caller, args);
+        }
+        return call(args);
+    }
+}
@@ -1,6 +1,146 @@
 package umlang.value;
 
+import umlang.errors.InterpretationException;
+
 /**
- * A VStr is a string value.
+ * A VStr is a string value, represented as a rope: either a leaf holding a java.lang.String, or the
+ * concatenation of two shorter VStrs. Concatenation keeps the tree balanced as an AVL tree is, with the
+ * depths of the two sides of every concatenation differing by at most one, so it costs O(log n) rather
+ * than a copy of both strings. The characters of a concatenation are only copied out, once, when its
+ * `value` is first needed, as it is to display it.
+ *
+ * VStrs are equal when their characters are, however they are built.
  */
-public record VStr(String value) implements Value {}
\ No newline at end of file
+public final class VStr implements Value {
+    /** Leaves at most this long are joined into one leaf rather than concatenated. */
+    private static final int MAX_FLAT_JOIN = 64;
+
+    private final VStr left;
+    private final VStr right;
+    private final int length;
+    private final int depth;
+    /**
+     * The characters of this VStr, or null until they are first needed if it is a concatenation. Threads
+     * racing to fill it in compute the same String, so it needs no synchronization.
+     */
+    private String flat;
+
+    /** A leaf VStr of the characters of `value`. */
+    public VStr(String value) {
+        this.left = null;
+        this.right = null;
+        this.length = value.length();
+        this.depth = 0;
+        this.flat = value;
+    }
+
+    private VStr(VStr left, VStr right) {
+        this.left = left;
+        this.right = right;
+        this.length = left.length + right.length;
+        this.depth = Math.max(left.depth, right.depth) + 1;
+        this.flat = null;
+    }
+
+    /** Answer the characters of this VStr as a String, flattening and remembering them if need be. */
+    public String value() {
+        var s = flat;
+        if (s == null) {
+            var b = new StringBuilder(length);
+            appendTo(b);
+            flat = s = b.toString();
+        }
+        return s;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /** Answer the concatenation of `this` and `other`. */
+    public VStr concat(VStr other) {
+        if (length == 0) return other;
+        if (other.length == 0) return this;
+        return join(this, other);
+    }
+
+    /** Answer the one-character string at `index`, signalling IndexOutOfRange if there is none. */
+    public VStr charAt(double index) throws InterpretationException {
+        var i = VVec.checkIndex(index, length);
+        var s = this;
+        while (s.flat == null) {
+            if (i < s.left.length) {
+                s = s.left;
+            } else {
+                i -= s.left.length;
+                s = s.right;
+            }
+        }
+        return new VStr(String.valueOf(s.flat.charAt(i)));
+    }
+
+    /**
+     * Answer the characters from index `start` up to but not including `end`, signalling IndexOutOfRange
+     * unless 0 <= start <= end <= length.
+     */
+    public VStr substring(double start, double end) throws InterpretationException {
+        var e = VVec.checkIndex(end, length + 1);
+        var s = VVec.checkIndex(start, e + 1);
+        return new VStr(value().substring(s, e));
+    }
+
+    private void appendTo(StringBuilder b) {
+        if (flat != null) {
+            b.append(flat);
+        } else {
+            left.appendTo(b);
+            right.appendTo(b);
+        }
+    }
+
+    /** Concatenate `a` and `b`, both nonempty, descending into the deeper one to keep the tree balanced. */
+    private static VStr join(VStr a, VStr b) {
+        if (a.depth > b.depth + 1) {
+            return balance(a.left, join(a.right, b));
+        }
+        if (b.depth > a.depth + 1) {
+            return balance(join(a, b.left), b.right);
+        }
+        if (a.left == null && b.left == null && a.length + b.length <= MAX_FLAT_JOIN) {
+            return new VStr(a.flat + b.flat);
+        }
+        return new VStr(a, b);
+    }
+
+    /** Concatenate `l` and `r`, whose depths differ by at most two, rotating so that they differ by at most one. */
+    private static VStr balance(VStr l, VStr r) {
+        if (l.depth > r.depth + 1) {
+            if (l.left.depth >= l.right.depth) {
+                return new VStr(l.left, new VStr(l.right, r));
+            }
+            return new VStr(new VStr(l.left, l.right.left), new VStr(l.right.right, r));
+        }
+        if (r.depth > l.depth + 1) {
+            if (r.right.depth >= r.left.depth) {
+                return new VStr(new VStr(l, r.left), r.right);
+            }
+            return new VStr(new VStr(l, r.left.left), new VStr(r.left.right, r.right));
+        }
+        return new VStr(l, r);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || o instanceof VStr s && length == s.length && value().equals(s.value());
+    }
+
+    @Override
+    public int hashCode() {
+        return value().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "VStr[value=" + value() + "]";
+    }
+}
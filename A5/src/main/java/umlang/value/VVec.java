@@ -0,0 +1,86 @@
+package umlang.value;
+
+import java.util.Arrays;
+
+import umlang.errors.IndexOutOfRange;
+import umlang.errors.InterpretationException;
+
+/**
+ * A VVec is a MUTABLE vector value: a fixed number of elements, indexed from 0.
+ *
+ * Like a VCell, a VVec is compared by pointer-identity, except that `=` compares vectors element by
+ * element: see Value.isEqualTo.
+ */
+public final class VVec implements Value {
+    private final Value[] elements;
+
+    /** A vector of `elements`, which it takes ownership of. */
+    public VVec(Value[] elements) {
+        this.elements = elements;
+    }
+
+    /** A vector of `size` elements, each `init`, signalling IndexOutOfRange unless `size` is a whole number. */
+    public static VVec make(double size, Value init) throws InterpretationException {
+        var elements = new Value[checkIndex(size, Integer.MAX_VALUE)];
+        Arrays.fill(elements, init);
+        return new VVec(elements);
+    }
+
+    public int length() {
+        return elements.length;
+    }
+
+    /** Retrieve the element at `index`, signalling IndexOutOfRange if there is none. */
+    public Value ref(double index) throws InterpretationException {
+        return elements[checkIndex(index, elements.length)];
+    }
+
+    /** Update the element at `index`, signalling IndexOutOfRange if there is none. Return the old value. */
+    public Value set(double index, Value v) throws InterpretationException {
+        var i = checkIndex(index, elements.length);
+        var old = elements[i];
+        elements[i] = v;
+        return old;
+    }
+
+    /** Answer a fresh vector with the same elements. */
+    public VVec copy() {
+        return new VVec(elements.clone());
+    }
+
+    /** Answer a copy of the current elements. */
+    public Value[] toArray() {
+        return elements.clone();
+    }
+
+    /** Sort the elements, which must all be numbers, into ascending order, signalling ExpectedNum if one is not. */
+    public void sort() throws InterpretationException {
+        for (var e : elements) {
+            e.asNum();
+        }
+        Arrays.sort(elements, (a, b) -> Double.compare(((VNum) a).value(), ((VNum) b).value()));
+    }
+
+    /** Answer `index` as an int, signalling IndexOutOfRange unless it is a whole number below `bound`. */
+    static int checkIndex(double index, int bound) throws InterpretationException {
+        if (index >= 0 && index < bound && index == (int) index) {
+            return (int) index;
+        }
+        return new IndexOutOfRange(index, bound).signal();
+    }
+
+    /** True iff `other` has as many elements, each `=` to the one at the same index here. */
+    boolean hasEqualElements(VVec other) {
+        if (this == other) return true;
+        if (elements.length != other.elements.length) return false;
+        for (var i = 0; i < elements.length; i++) {
+            if (!elements[i].isEqualTo(other.elements[i])) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isStructuralEquivalenceAppropriate() {
+        return false;
+    }
+}
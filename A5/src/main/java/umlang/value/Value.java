@@ -1,17 +1,15 @@
 package umlang.value;
 
-import immutable.List;
-import immutable.ThrowingBiFunction;
-import immutable.ThrowingFunction;
+import java.util.StringJoiner;
+
 import syntax.Form;
-import umlang.Environment;
-import umlang.ast.Exp;
-import umlang.errors.BadArgumentCount;
 import umlang.errors.ExpectedBool;
 import umlang.errors.ExpectedCell;
-import umlang.errors.ExpectedFn;
 import umlang.errors.ExpectedNum;
+import umlang.errors.ExpectedMap;
 import umlang.errors.ExpectedObj;
+import umlang.errors.ExpectedStr;
+import umlang.errors.ExpectedVec;
 import umlang.errors.InterpretationException;
 
 public sealed interface Value permits
@@ -21,13 +19,26 @@ public sealed interface Value permits
     VPrim,
     VCell,
     VFn,
-    VObj
+    VObj,
+    VVec,
+    VMap
 {
     /** Answer true if a structural equivalence check is appropriate for this kind of value, and false otherwise. Overridden in some implementations! */
     default boolean isStructuralEquivalenceAppropriate() {
         return true;
     }
 
+    /**
+     * Answer true iff `this` and `other` are `=`. Values for which structural equivalence is appropriate
+     * are compared structurally, and vectors element by element; others are never `=`.
+     */
+    default boolean isEqualTo(Value other) {
+        return switch (this) {
+            case VVec v when other instanceof VVec w -> v.hasEqualElements(w);
+            default -> isStructuralEquivalenceAppropriate() && other.isStructuralEquivalenceAppropriate() && equals(other);
+        };
+    }
+
     /** Signals ExpectedBool unless `this` is suitable for use in a conditional */
     default boolean isTruthy() throws InterpretationException {
         return switch (this) {
@@ -52,6 +63,14 @@ public sealed interface Value permits
         };
     }
 
+    /** Signals ExpectedStr unless `this` is a VStr */
+    default VStr asStr() throws InterpretationException {
+        return switch (this) {
+            case VStr s -> s;
+            default -> new ExpectedStr(this).signal();
+        };
+    }
+
     /** Signals ExpectedCell unless `this` is a VCell */
     default VCell asCell() throws InterpretationException {
         return switch (this) {
@@ -60,32 +79,19 @@ public sealed interface Value permits
         };
     }
 
-    default <Y> Y invoke(
-        List<Value> argValues,
-        ThrowingBiFunction<Exp, Environment<Value>, Y, InterpretationException> ifFn,
-        ThrowingFunction<Value, Y, InterpretationException> ifPrimValue,
-        ThrowingFunction<InterpretationException, Y, InterpretationException> ifPrimError
-    ) throws InterpretationException {
+    /** Signals ExpectedVec unless `this` is a VVec */
+    default VVec asVec() throws InterpretationException {
         return switch (this) {
-            case VFn(var formals, var body, var env) -> {
-                if (formals.length() != argValues.length()) {
-                    new BadArgumentCount(formals.length(), argValues.length()).signal();
-                }
-                yield ifFn.apply(body, env.extend(formals, argValues));
-            }
-            case VPrim(var arity, var proc) -> {
-                if (arity != argValues.length()) {
-                    new BadArgumentCount(arity, argValues.length()).signal();
-                }
-                Value result;
-                try {
-                    result = proc.apply(argValues);
-                } catch (InterpretationException ie) {
-                    yield ifPrimError.apply(ie);
-                }
-                yield ifPrimValue.apply(result);
-            }
-            default -> new ExpectedFn(this).signal();
+            case VVec v -> v;
+            default -> new ExpectedVec(this).signal();
+        };
+    }
+
+    /** Signals ExpectedMap unless `this` is a VMap */
+    default VMap asMap() throws InterpretationException {
+        return switch (this) {
+            case VMap m -> m;
+            default -> new ExpectedMap(this).signal();
         };
     }
 
@@ -94,11 +100,27 @@ public sealed interface Value permits
         return switch (this) {
             case VNum(var n) -> (n == (long) n) ? "" + (long) n : "" + n;
             case VBool(var b) -> b ? "#t" : "#f";
-            case VStr(var s) -> s;
+            case VStr s -> s.value();
             case VPrim ignored -> "#<VPrim>";
             case VCell c -> "#<VCell " + c.contents().toDisplayableString() + ">";
             case VFn f -> "#<VFn " + new Form(f.formals()) + " " + f.body().unparse() + ">";
             case VObj ignored -> "#<VObj>";
+            case VVec v -> {
+                var out = new StringJoiner(" ", "#(", ")");
+                for (var e : v.toArray()) {
+                    out.add(e.toDisplayableString());
+                }
+                yield out.toString();
+            }
+            case VMap m -> {
+                var out = new StringJoiner(" ", "#<VMap", ">");
+                out.add("");
+                var entries = m.entries();
+                for (var i = 0; i < entries.length; i += 2) {
+                    out.add("{" + entries[i].toDisplayableString() + " " + entries[i + 1].toDisplayableString() + "}");
+                }
+                yield out.toString();
+            }
         };
     }
 }
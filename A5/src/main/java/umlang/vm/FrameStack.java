@@ -0,0 +1,90 @@
+package umlang.vm;
+
+import java.util.Arrays;
+
+import immutable.Cons;
+import immutable.List;
+
+/**
+ * A FrameStack is the VM's continuation: a mutable stack of frames stored in fixed-size array segments.
+ * Pushing and popping are an array store and load; crossing into a new segment allocates it only the first
+ * time, and popping back keeps one spare segment above the top so a call loop at a boundary does not
+ * thrash. Because segments are ordinary heap arrays, deep recursion is limited by the heap, not the Java
+ * stack.
+ *
+ * Nothing holds the continuation as a value while the VM runs. Code that needs one - a debugging trace now,
+ * or exception unwinding and `call/cc` later - asks for `reify`, which copies the frames into an immutable
+ * List.
+ */
+final class FrameStack<F> {
+    private static final int SEGMENT_SIZE = 1024;
+
+    /** segments[0..segment] are in use; segments[segment + 1], if present, is the spare. */
+    private Object[][] segments = new Object[][] { new Object[SEGMENT_SIZE] };
+    private int segment = 0;
+    /** The top of the current segment. */
+    private Object[] frames = segments[0];
+    /** The number of frames in the current segment. */
+    private int top = 0;
+
+    /** The number of frames on the stack. */
+    int depth() {
+        return segment * SEGMENT_SIZE + top;
+    }
+
+    void push(F frame) {
+        if (top == SEGMENT_SIZE) {
+            nextSegment();
+        }
+        frames[top++] = frame;
+    }
+
+    @SuppressWarnings("unchecked")
+    F pop() {
+        if (top == 0) {
+            previousSegment();
+        }
+        var frame = (F) frames[--top];
+        frames[top] = null;
+        return frame;
+    }
+
+    /** Pop frames until only `depth` remain. */
+    void truncate(int depth) {
+        while (depth() > depth) {
+            pop();
+        }
+    }
+
+    /** Answer the frames above `depth`, top first, as an immutable List. The stack is unchanged. */
+    @SuppressWarnings("unchecked")
+    List<F> reify(int depth) {
+        List<F> result = List.empty();
+        for (var i = depth; i < depth(); i++) {
+            result = new Cons<>((F) segments[i / SEGMENT_SIZE][i % SEGMENT_SIZE], result);
+        }
+        return result;
+    }
+
+    private void nextSegment() {
+        segment++;
+        if (segment == segments.length) {
+            segments = Arrays.copyOf(segments, segments.length * 2);
+        }
+        if (segments[segment] == null) {
+            segments[segment] = new Object[SEGMENT_SIZE];
+        }
+        frames = segments[segment];
+        top = 0;
+    }
+
+    private void previousSegment() {
+        // Keep the segment being left as the spare, and let any above it go.
+        if (segment + 1 < segments.length) {
+            segments[segment + 1] = null;
+        }
+        segment--;
+        frames = segments[segment];
+        top = SEGMENT_SIZE;
+    }
+}
@@ -0,0 +1,387 @@
+package umlang.vm;
+
+import java.util.Arrays;
+
+import immutable.Cons;
+import immutable.List;
+import immutable.Nil;
+import syntax.AtomSymbol;
+import umlang.Frame;
+import umlang.GlobalEnvironment;
+import umlang.Interpreter;
+import umlang.ast.Bool;
+import umlang.ast.Call;
+import umlang.ast.CallMethod;
+import umlang.ast.Conditional;
+import umlang.ast.Exp;
+import umlang.ast.ExtendObj;
+import umlang.ast.Fn;
+import umlang.ast.GlobalRef;
+import umlang.ast.InertObj;
+import umlang.ast.Let;
+import umlang.ast.LocalRef;
+import umlang.ast.Num;
+import umlang.ast.PrimOp;
+import umlang.ast.Ref;
+import umlang.ast.Seq;
+import umlang.ast.Str;
+import umlang.ast.Throw;
+import umlang.ast.TryCatch;
+import umlang.errors.ExpectedFn;
+import umlang.errors.InterpretationException;
+import umlang.value.VFn;
+import umlang.value.VObj;
+import umlang.value.VPrim;
+import umlang.value.Value;
+
+/**
+ * A RegisterVM is the VM's machine without its allocation. Where the VM builds an EvalState or ApplyState
+ * for every step and a record, a Cons and often a lambda for every frame, the RegisterVM keeps the machine
+ * state in four registers - `exp`, `env`, `value`, and the stack - and each frame as one row of the
+ * stack's parallel arrays, tagged with one of the frame kinds below. Frames that move on to their next
+ * subexpression, such as ARGS, update their row in place.
+ *
+ * A step therefore allocates nothing of its own. The only allocation left is what the program itself
+ * asks for: a call's argument array, which becomes its callee's Frame as is, that Frame, closures,
+ * objects, and numbers outside VNum's cache.
+ *
+ * While `exp` is non-null, the machine is evaluating it in `env`; once it is null, the machine is returning
+ * `value` to the top frame. Calls in tail position pop their frame before entering the callee, so tail
+ * calls run in constant space.
+ */
+public class RegisterVM extends Interpreter {
+    /** IF: waiting for the test of the Conditional `owner`. */
+    private static final int IF = 0;
+    /** CALLEE: waiting for the function of the Call `owner`. */
+    private static final int CALLEE = 1;
+    /** ARGS: filling slot `index` of `values` with the arguments of a call of `held`; `rest` follows. */
+    private static final int ARGS = 2;
+    /** LET: filling slot `index` of `values` with the inits of the Let `owner`; `rest` follows. */
+    private static final int LET = 3;
+    /** RECEIVER: waiting for the receiver of the CallMethod `owner`. */
+    private static final int RECEIVER = 4;
+    /** PRIM1: waiting for the argument of the one-argument PrimOp `owner`. */
+    private static final int PRIM1 = 5;
+    /** PRIM2_LEFT: waiting for the first argument of the two-argument PrimOp `owner`; `rest` holds the second. */
+    private static final int PRIM2_LEFT = 6;
+    /** PRIM2_RIGHT: holding the first argument in `held`, waiting for the second of the PrimOp `owner`. */
+    private static final int PRIM2_RIGHT = 7;
+    /** SEQ: discarding a value, then continuing with `rest`, which has at least one element. */
+    private static final int SEQ = 8;
+    /** EXTEND: waiting for the base object of the ExtendObj `owner`, to extend with the method `held`. */
+    private static final int EXTEND = 9;
+    /**
+     * SEND: filling slot `index` of `values`, after the receiver in slot 0, with the arguments of the
+     * CallMethod `owner`; `rest` follows.
+     */
+    private static final int SEND = 10;
+
+    private static final Value[] NO_VALUES = new Value[0];
+
+    // The registers.
+    private Exp exp;
+    private Frame env;
+    private Value value;
+
+    // The stack: row i of these arrays is one frame; `top` is the number of frames.
+    private int top = 0;
+    private int[] kinds = new int[64];
+    private int[] indices = new int[64];
+    private Exp[] owners = new Exp[64];
+    private List<?>[] rests = new List<?>[64];
+    private Frame[] envs = new Frame[64];
+    private Value[][] arrays = new Value[64][];
+    private Value[] helds = new Value[64];
+
+    public RegisterVM() {
+        super();
+    }
+
+    public RegisterVM(GlobalEnvironment<Value> globals) {
+        super(globals);
+    }
+
+    @Override
+    public Interpreter fork() {
+        return new RegisterVM(globals());
+    }
+
+    @Override
+    public Value evaluate(Exp initialExp, Frame initialEnv) throws InterpretationException {
+        return execute(initialExp, initialEnv);
+    }
+
+    @Override
+    public Value callMethod(Value receiver, AtomSymbol selector, Value... arguments) throws InterpretationException {
+        var method = receiver.asObj().lookup(selector);
+        return execute(method.body(), method.enter(withReceiver(receiver, arguments)));
+    }
+
+    @Override
+    public Value apply(Value fn, Value[] args) throws InterpretationException {
+        return switch (fn) {
+            case VFn f -> execute(f.body(), f.enter(args));
+            case VPrim prim -> prim.call(this, args);
+            default -> new ExpectedFn(fn).signal();
+        };
+    }
+
+    /**
+     * Run the machine from evaluating `initialExp` in `initialEnv` until its value is returned to the frame
+     * that was on top on entry. The registers are saved and restored, so nested runs are safe.
+     */
+    private Value execute(Exp initialExp, Frame initialEnv) throws InterpretationException {
+        var savedExp = exp;
+        var savedEnv = env;
+        var savedValue = value;
+        var base = top;
+        exp = initialExp;
+        env = initialEnv;
+        try {
+            return run(base);
+        } finally {
+            while (top > base) {
+                pop();
+            }
+            exp = savedExp;
+            env = savedEnv;
+            value = savedValue;
+        }
+    }
+
+    private Value run(int base) throws InterpretationException {
+        while (true) {
+            if (exp != null) {
+                evalStep();
+            } else if (top == base) {
+                return value;
+            } else {
+                returnStep();
+            }
+        }
+    }
+
+    /** Take one step of evaluating `exp` in `env`. */
+    private void evalStep() throws InterpretationException {
+        switch (exp) {
+            case Ref(var name) -> produce(lookup(name));
+            case GlobalRef(var name, var cell) -> produce(cell.get());
+            case LocalRef(var name, var depth, var index) -> produce(env.lookup(depth, index));
+            case Num n -> produce(n.constant());
+            case Bool b -> produce(b.constant());
+            case Str s -> produce(s.constant());
+            case Conditional c -> {
+                push(IF, c);
+                exp = c.test();
+            }
+            case Let let -> {
+                if (let.inits() instanceof Cons<Exp>(var first, var rest)) {
+                    push(LET, let);
+                    arrays[top - 1] = new Value[let.inits().length()];
+                    rests[top - 1] = rest;
+                    exp = first;
+                } else {
+                    env = new Frame(NO_VALUES, env);
+                    exp = let.body();
+                }
+            }
+            case Fn(var formals, var body, var captures, var arity) -> produce(new VFn(formals, body, env.capture(captures), arity));
+            case Call call -> {
+                push(CALLEE, call);
+                exp = call.fnExp();
+            }
+            case Seq(var exps) -> {
+                if (exps.rest() instanceof Cons<Exp> more) {
+                    push(SEQ, null);
+                    rests[top - 1] = more;
+                }
+                exp = exps.first();
+            }
+            case InertObj() -> produce(VObj.EMPTY);
+            case ExtendObj extend -> {
+                push(EXTEND, extend);
+                helds[top - 1] = new VFn(new Cons<>(new AtomSymbol("self"), extend.formals()), extend.body(), env.capture(extend.captures()), extend.arity() + 1);
+                exp = extend.base();
+            }
+            case PrimOp p when p.cell().isDeclared() -> exp = p.asCall();
+            case PrimOp p -> {
+                switch (p.args()) {
+                    case Cons(var a, Nil()) -> {
+                        push(PRIM1, p);
+                        exp = a;
+                    }
+                    case Cons(var a, Cons<Exp> second) -> {
+                        push(PRIM2_LEFT, p);
+                        rests[top - 1] = second;
+                        exp = a;
+                    }
+                    default -> throw new IllegalStateException("PrimOp of unexpected arity: " + p);
+                }
+            }
+            case CallMethod send -> {
+                push(RECEIVER, send);
+                exp = send.objExp();
+            }
+            case Throw(var exnExp) ->
+                throw new RuntimeException("UNIMPLEMENTED Throw in umlang.vm.RegisterVM");
+            case TryCatch(var body, var exnVar, var handler) ->
+                throw new RuntimeException("UNIMPLEMENTED TryCatch in umlang.vm.RegisterVM");
+        }
+    }
+
+    /** Take one step of returning `value` to the top frame. */
+    @SuppressWarnings("unchecked")
+    private void returnStep() throws InterpretationException {
+        var t = top - 1;
+        switch (kinds[t]) {
+            case IF -> {
+                var c = (Conditional) owners[t];
+                env = envs[t];
+                pop();
+                exp = value.isTruthy() ? c.ifTrue() : c.ifFalse();
+            }
+            case CALLEE -> {
+                var args = ((Call) owners[t]).args();
+                if (args instanceof Cons<Exp>(var first, var rest)) {
+                    kinds[t] = ARGS;
+                    helds[t] = value;
+                    arrays[t] = new Value[args.length()];
+                    rests[t] = rest;
+                    env = envs[t];
+                    exp = first;
+                } else {
+                    pop();
+                    call(value, NO_VALUES);
+                }
+            }
+            case RECEIVER -> {
+                // As in the other engines, the method is looked up only once all the arguments are evaluated.
+                var send = (CallMethod) owners[t];
+                var args = new Value[send.args().length() + 1];
+                args[0] = value;
+                if (send.args() instanceof Cons<Exp>(var first, var rest)) {
+                    kinds[t] = SEND;
+                    indices[t] = 1;
+                    arrays[t] = args;
+                    rests[t] = rest;
+                    env = envs[t];
+                    exp = first;
+                } else {
+                    pop();
+                    send(send, args);
+                }
+            }
+            case ARGS, LET, SEND -> {
+                var values = arrays[t];
+                values[indices[t]++] = value;
+                if (rests[t] instanceof Cons<?>(var next, var rest)) {
+                    rests[t] = rest;
+                    env = envs[t];
+                    exp = (Exp) next;
+                } else if (kinds[t] == LET) {
+                    var let = (Let) owners[t];
+                    env = new Frame(values, envs[t]);
+                    pop();
+                    exp = let.body();
+                } else if (kinds[t] == SEND) {
+                    var send = (CallMethod) owners[t];
+                    pop();
+                    send(send, values);
+                } else {
+                    var callee = helds[t];
+                    pop();
+                    call(callee, values);
+                }
+            }
+            case PRIM1 -> {
+                var p = (PrimOp) owners[t];
+                pop();
+                value = p.kind().apply(value);
+            }
+            case PRIM2_LEFT -> {
+                kinds[t] = PRIM2_RIGHT;
+                helds[t] = value;
+                env = envs[t];
+                exp = ((Cons<Exp>) rests[t]).first();
+            }
+            case PRIM2_RIGHT -> {
+                var p = (PrimOp) owners[t];
+                var left = helds[t];
+                pop();
+                value = p.kind().apply(left, value);
+            }
+            case SEQ -> {
+                var more = (Cons<Exp>) rests[t];
+                env = envs[t];
+                if (more.rest() instanceof Cons<Exp> rest) {
+                    rests[t] = rest;
+                } else {
+                    pop();
+                }
+                exp = more.first();
+            }
+            case EXTEND -> {
+                var extend = (ExtendObj) owners[t];
+                var method = (VFn) helds[t];
+                pop();
+                value = value.asObj().extend(extend.selector(), method);
+            }
+            default -> throw new IllegalStateException("Unknown frame kind " + kinds[t]);
+        }
+    }
+
+    /** Call `callee` with `args`, which becomes the slots of its Frame if it is a VFn. */
+    private void call(Value callee, Value[] args) throws InterpretationException {
+        switch (callee) {
+            case VFn fn -> {
+                env = fn.enter(args);
+                exp = fn.body();
+            }
+            case VPrim prim -> value = prim.call(this, args);
+            default -> new ExpectedFn(callee).signal();
+        }
+    }
+
+    /** Call the method `send` selects on the receiver in `args[0]`, with `args`. */
+    private void send(CallMethod send, Value[] args) throws InterpretationException {
+        call(send.cache().lookup(args[0].asObj(), send.selector()), args);
+    }
+
+    /** Finish evaluating the current `exp` with `v`. */
+    private void produce(Value v) {
+        value = v;
+        exp = null;
+    }
+
+    /** Push a frame of `kind` for `owner`, remembering the current `env`. */
+    private void push(int kind, Exp owner) {
+        if (top == kinds.length) {
+            grow();
+        }
+        kinds[top] = kind;
+        indices[top] = 0;
+        owners[top] = owner;
+        envs[top] = env;
+        top++;
+    }
+
+    private void pop() {
+        top--;
+        owners[top] = null;
+        rests[top] = null;
+        envs[top] = null;
+        arrays[top] = null;
+        helds[top] = null;
+    }
+
+    private void grow() {
+        var n = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, n);
+        indices = Arrays.copyOf(indices, n);
+        owners = Arrays.copyOf(owners, n);
+        rests = Arrays.copyOf(rests, n);
+        envs = Arrays.copyOf(envs, n);
+        arrays = Arrays.copyOf(arrays, n);
+        helds = Arrays.copyOf(helds, n);
+    }
+}
@@ -0,0 +1,140 @@
+package umlang.vm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import immutable.List;
+import immutable.Maybe;
+import syntax.TermReader;
+import umlang.ast.ParseError;
+import umlang.ast.Parser;
+import umlang.ast.ToplevelClause;
+import umlang.value.Value;
+
+/**
+ * A Scheduler shares a few carrier threads among many umlang programs, each running as a VM.Process on a
+ * VM of its own. A carrier takes the Task at the head of the ready queue, runs it for one `quantum` of
+ * steps, and puts it back at the tail unless it has finished. No program, not even one that never halts
+ * such as omega.um, holds a carrier for more than a quantum, and ready programs share the carriers evenly.
+ */
+public final class Scheduler implements AutoCloseable {
+    /** The default quantum, in VM steps: well under a millisecond of typical code. */
+    public static final long QUANTUM = 10_000;
+
+    private final long quantum;
+    private final LinkedBlockingQueue<Task> ready = new LinkedBlockingQueue<>();
+    private final Thread[] carriers;
+
+    public Scheduler(int carriers) {
+        this(carriers, QUANTUM);
+    }
+
+    public Scheduler(int carriers, long quantum) {
+        this.quantum = quantum;
+        this.carriers = new Thread[carriers];
+        for (var i = 0; i < carriers; i++) {
+            var carrier = new Thread(this::carry, "umlang-carrier-" + i);
+            carrier.setDaemon(true);
+            carrier.start();
+            this.carriers[i] = carrier;
+        }
+    }
+
+    /** Parse `sourceCode` and schedule it to run on a fresh VM. */
+    public Task submit(String sourceCode) throws ParseError, IOException {
+        return submit(new VM(), new TermReader(sourceCode).readAll().terms().map(Parser::parseToplevel));
+    }
+
+    /** Schedule `program` to run on `vm`, which nothing else may use until the Task is done. */
+    public Task submit(VM vm, List<ToplevelClause> program) {
+        var task = new Task(vm.spawn(program));
+        ready.add(task);
+        return task;
+    }
+
+    /**
+     * Stop the carriers, cancelling every Task that has not finished. If the calling thread is interrupted
+     * while waiting for the carriers to stop, it stops waiting, and keeps its interrupt status.
+     */
+    @Override
+    public void close() {
+        for (var carrier : carriers) {
+            carrier.interrupt();
+        }
+        try {
+            for (var carrier : carriers) {
+                carrier.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        var unfinished = new ArrayList<Task>();
+        ready.drainTo(unfinished);
+        for (var task : unfinished) {
+            task.cancel();
+        }
+    }
+
+    private void carry() {
+        try {
+            while (true) {
+                var task = ready.take();
+                if (!task.runSlice(quantum)) {
+                    ready.add(task);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed.
+        }
+    }
+
+    /** A Task is a program submitted to a Scheduler. */
+    public static final class Task {
+        private final VM.Process process;
+        private final CompletableFuture<Maybe<Value>> result = new CompletableFuture<>();
+        private volatile long slices = 0;
+
+        private Task(VM.Process process) {
+            this.process = process;
+        }
+
+        /**
+         * The program's result, as evaluateProgram would answer it, once it finishes. It completes
+         * exceptionally if the program fails, and is cancelled if the Task is.
+         */
+        public CompletableFuture<Maybe<Value>> result() {
+            return result;
+        }
+
+        /** The number of slices the program has run so far. */
+        public long slices() {
+            return slices;
+        }
+
+        /** Stop running the program. It is dropped at its next turn. */
+        public void cancel() {
+            result.cancel(false);
+        }
+
+        /** Run one slice of the program, answering true iff the Task is now done. */
+        private boolean runSlice(long quantum) {
+            if (result.isDone()) {
+                return true;
+            }
+            slices++;
+            try {
+                if (process.run(quantum)) {
+                    result.complete(process.result());
+                    return true;
+                }
+                return false;
+            } catch (Throwable e) {
+                // Errors too, such as a StackOverflowError, so that the program fails rather than its carrier.
+                result.completeExceptionally(e);
+                return true;
+            }
+        }
+    }
+}
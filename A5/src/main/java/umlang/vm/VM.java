@@ -2,37 +2,92 @@ package umlang.vm;
 
 import immutable.Cons;
 import immutable.List;
+import immutable.Maybe;
 import immutable.Nil;
-import immutable.ThrowingBiFunction;
+import immutable.None;
+import immutable.Some;
+import immutable.ThrowingFunction;
 import syntax.AtomSymbol;
-import umlang.Environment;
+import umlang.GlobalEnvironment;
 import umlang.Interpreter;
 import umlang.ast.Bool;
 import umlang.ast.Call;
 import umlang.ast.CallMethod;
 import umlang.ast.Conditional;
+import umlang.ast.Definition;
 import umlang.ast.Exp;
 import umlang.ast.ExtendObj;
 import umlang.ast.Fn;
+import umlang.ast.GlobalRef;
 import umlang.ast.InertObj;
 import umlang.ast.Let;
+import umlang.ast.LocalRef;
 import umlang.ast.Num;
+import umlang.ast.PrimOp;
 import umlang.ast.Ref;
 import umlang.ast.Seq;
 import umlang.ast.Str;
 import umlang.ast.Throw;
+import umlang.ast.ToplevelClause;
 import umlang.ast.TryCatch;
+import umlang.errors.ExpectedFn;
 import umlang.errors.InterpretationException;
 import umlang.errors.UserException;
-import umlang.value.VBool;
+import umlang.value.InlineCache;
 import umlang.value.VFn;
-import umlang.value.VNum;
 import umlang.value.VObj;
-import umlang.value.VStr;
+import umlang.value.VPrim;
 import umlang.value.Value;
 
-/** A simple virtual-machine style interpreter for Exps. */
+/**
+ * A simple virtual-machine style interpreter for Exps.
+ *
+ * Unless built with `fuse` false, the VM fuses common shapes of Exp into single machine steps. An Exp is
+ * "direct" if it can be evaluated straight away, without calling anything or suspending: a variable, a
+ * literal, a `fn`, `{obj}`, or a PrimOp such as `{= n 0}` or `{get c}` whose arguments are all direct.
+ * A direct Exp, a Call, Let or CallMethod whose parts are all direct, and a Conditional with a direct test
+ * each take one step; argument lists evaluate their direct elements without pushing a frame for each.
+ *
+ * Because the whole computation is a MachineState and a stack of frames, a VM can also stop after any
+ * step and carry on later: see `spawn`, its Process, and the Scheduler built on them.
+ */
 public class VM extends Interpreter {
+    private final boolean fuse;
+    private long steps = 0;
+    /**
+     * The continuation: frames waiting for values, shared by nested `execute`s. While a Process runs a
+     * slice, this is that Process's own stack.
+     */
+    private FrameStack<Frame> stack = new FrameStack<>();
+
+    public VM() {
+        this(true);
+    }
+
+    /** A VM that fuses common shapes of Exp into single steps iff `fuse`. */
+    public VM(boolean fuse) {
+        this(new GlobalEnvironment<>(), fuse);
+    }
+
+    public VM(GlobalEnvironment<Value> globals) {
+        this(globals, true);
+    }
+
+    public VM(GlobalEnvironment<Value> globals, boolean fuse) {
+        super(globals);
+        this.fuse = fuse;
+    }
+
+    @Override
+    public Interpreter fork() {
+        return new VM(globals(), fuse);
+    }
+
+    /** The number of machine steps this VM has taken so far. */
+    public long steps() {
+        return steps;
+    }
+
     /**
      * A MachineState is either an EvalState or an ApplyState.
      * It represents the complete state of a computation mid-execution.
@@ -41,14 +96,14 @@ public class VM extends Interpreter {
     /**
      * An EvalState is a machine about to evaluate `exp` in environment `env`.
      * When `exp` is completely evaluated to some value, the value will be passed on to
-     * the first frame in `continuation`. If no continuations remain, the whole machine terminates
-     * and the value is the result.
+     * the top frame of `stack`. If no frames remain above where the current `execute` began,
+     * it terminates and the value is the result.
      */
-    private record EvalState(Exp exp, Environment<Value> env, List<Frame> continuation) implements MachineState {}
+    private record EvalState(Exp exp, umlang.Frame env) implements MachineState {}
     /**
-     * An ApplyState is a machine about to return `value` to the first frame in `continuation` (see EvalState).
+     * An ApplyState is a machine about to return `value` to the top frame of `stack` (see EvalState).
      */
-    private record ApplyState(Value value, List<Frame> continuation) implements MachineState {}
+    private record ApplyState(Value value) implements MachineState {}
 
     /**
      * A Frame is a fragment of a suspended computation. It represents the "next thing to do" to drive the
@@ -56,27 +111,22 @@ public class VM extends Interpreter {
      * Whenever an ApplyState is processed, the value it contains is given to the top Frame; each kind of frame
      * handles the value in its own way.
      */
-    private sealed interface Frame permits IfFrame, EvalListFrame, ExtendObjFrame, FnValFrame, ObjValFrame, SeqFrame, ThrowFrame, CatchFrame {
-        /** Convenience method for prepending a Frame to a continuation. */
-        default List<Frame> then(List<Frame> subsequentFrames) {
-            return new Cons<>(this, subsequentFrames);
-        }
-    }
+    private sealed interface Frame permits IfFrame, EvalListFrame, ExtendObjFrame, FnValFrame, ObjValFrame, SeqFrame, ThrowFrame, CatchFrame {}
     /**
      * An IfFrame is waiting for the "test" in a conditional to yield a value. When the value arrives,
      * one of `ifTrue` or `ifFalse` will be chosen to continue executing in `env`.
      */
-    private record IfFrame(Environment<Value> env, Exp ifTrue, Exp ifFalse) implements Frame {}
+    private record IfFrame(umlang.Frame env, Exp ifTrue, Exp ifFalse) implements Frame {}
     /**
      * An EvalListFrame is part-way through evaluating e.g. an argument list.
-     * When given a value, it is prepended to doneRev. Then, if rest is empty, whenComplete is called.
-     * Otherwise, another EvalListFrame is prepended to the continuation and the machine switches
-     * to evaluating the first of rest.
+     * When given a value, it is prepended to doneRev. Then, if rest is empty, whenComplete is called with
+     * the values in order, as the array that becomes e.g. the callee's Frame.
+     * Otherwise, another EvalListFrame is pushed and the machine switches to evaluating the first of rest.
      */
     private record EvalListFrame(
         List<Value> doneRev,
-        ThrowingBiFunction<List<Value>, List<Frame>, MachineState, InterpretationException> whenComplete,
-        Environment<Value> env,
+        ThrowingFunction<Value[], MachineState, InterpretationException> whenComplete,
+        umlang.Frame env,
         List<Exp> rest
     ) implements Frame {}
     /**
@@ -88,17 +138,18 @@ public class VM extends Interpreter {
      * A FnValFrame is waiting for a function value to call. When it arrives, it uses EvalListFrame
      * to evaluate `args` in `env`, supplying a whenComplete that transfers control to the function's body.
      */
-    private record FnValFrame(List<Exp> args, Environment<Value> env) implements Frame {}
+    private record FnValFrame(List<Exp> args, umlang.Frame env) implements Frame {}
     /**
-     * An ObjValFrame is like a FnValFrame, but for a pending method call.
+     * An ObjValFrame is like a FnValFrame, but for a pending method call. The method is found through
+     * the call site's `cache`.
      */
-    private record ObjValFrame(Environment<Value> env, AtomSymbol selector, List<Exp> args) implements Frame {}
+    private record ObjValFrame(umlang.Frame env, AtomSymbol selector, List<Exp> args, InlineCache cache) implements Frame {}
     /**
      * A SeqFrame discards the value it is given. Then, if only one Exp remains in `more`, it
      * switches to evaluating that. Otherwise, it pushes another SeqFrame with the rest of `more` and then
      * switches to the first of `more`.
      */
-    private record SeqFrame(Cons<Exp> more, Environment<Value> env) implements Frame {}
+    private record SeqFrame(Cons<Exp> more, umlang.Frame env) implements Frame {}
     /**
      * A ThrowFrame represents a pending `throw`, waiting for the exception value to throw.
      */
@@ -107,115 +158,349 @@ public class VM extends Interpreter {
      * A CatchFrame represents an active exception-catching frame. When Throw is evaluated,
      * the continuation is unwound until a CatchFrame is found or the continuation is empty.
      */
-    private record CatchFrame(AtomSymbol exnVar, Exp handler, Environment<Value> env) implements Frame {}
+    private record CatchFrame(AtomSymbol exnVar, Exp handler, umlang.Frame env) implements Frame {}
 
     /**
      * Evaluate `initialExp` in `initialEnv` and return the resulting Value.
      */
     @Override
-    public Value evaluate(Exp initialExp, Environment<Value> initialEnv) throws InterpretationException {
-        return execute(new EvalState(initialExp, initialEnv, List.empty()));
+    public Value evaluate(Exp initialExp, umlang.Frame initialEnv) throws InterpretationException {
+        return execute(new EvalState(initialExp, initialEnv));
     }
 
-    /* Execute from the given `state`. */
+    /* Execute from the given `state`, until a value is returned to the frame the stack had on entry. */
     private Value execute(MachineState state) throws InterpretationException {
+        var base = stack.depth();
+        try {
+            return ((ApplyState) run(state, base, Long.MAX_VALUE)).value();
+        } finally {
+            // Only non-empty if an error escaped; discard the frames it abandoned.
+            stack.truncate(base);
+        }
+    }
+
+    /**
+     * Run from `state` for at most `fuel` steps, answering the state reached: an ApplyState with the stack
+     * back at depth `base` if the computation has finished, or else the state to resume it from.
+     */
+    private MachineState run(MachineState state, int base, long fuel) throws InterpretationException {
         while (true) {
-            if (noisy) System.err.println(state);
+            if (state instanceof ApplyState && stack.depth() == base || fuel-- == 0) {
+                return state;
+            }
+            if (noisy) System.err.println(state + " " + stack.reify(base));
+            steps++;
             switch (state) {
-                case ApplyState(var val, Nil<Frame> ignored) -> {
-                    return val;
-                }
-                case ApplyState(var val, Cons<Frame>(var frame, var continuation)) -> state = switch (frame) {
+                case ApplyState(var val) -> state = switch (stack.pop()) {
                     case IfFrame(var env, var ifTrue, var ifFalse) ->
-                        new EvalState(val.isTruthy() ? ifTrue : ifFalse, env, continuation);
+                        new EvalState(val.isTruthy() ? ifTrue : ifFalse, env);
                     case EvalListFrame(var doneRev, var whenComplete, var env, var rest) ->
-                        evalList(rest, env, continuation, new Cons<>(val, doneRev), whenComplete);
+                        evalList(rest, env, new Cons<>(val, doneRev), whenComplete);
                     case ExtendObjFrame(var method, var selector) ->
-                        new ApplyState(new VObj(val.asObj().methods().extend(selector, method)), continuation);
+                        new ApplyState(val.asObj().extend(selector, method));
                     case FnValFrame(var args, var env) ->
-                        evalList(args, env, continuation, List.empty(),
-                            (argVals, k) -> invoke(val, argVals, k));
-                    case ObjValFrame(var env, var selector, var args) ->
-                        evalList(args, env, continuation, List.empty(),
-                            (argVals, k) -> invoke(val.asObj().lookup(selector), new Cons<>(val, argVals), k));
+                        evalList(args, env, List.empty(),
+                            (argVals) -> invoke(val, argVals));
+                    case ObjValFrame(var env, var selector, var args, var cache) ->
+                        evalList(args, env, new Cons<>(val, List.empty()),
+                            (argVals) -> invoke(cache.lookup(val.asObj(), selector), argVals));
                     case SeqFrame(var more, var env) ->
-                        new EvalState(new Seq(more), env, continuation);
+                        new EvalState(new Seq(more), env);
                     case ThrowFrame() ->
                         throw new RuntimeException("UNIMPLEMENTED ThrowFrame in umlang.vm.VM");
                     case CatchFrame(var exnVar, var handler, var env) ->
                         throw new RuntimeException("UNIMPLEMENTED CatchFrame in umlang.vm.VM");
                 };
-                case EvalState(var exp, var env, var continuation) -> state = switch (exp) {
-                    case Ref(var name) ->
-                        new ApplyState(lookup(name, env), continuation);
-                    case Num(var n) ->
-                        new ApplyState(new VNum(n), continuation);
-                    case Bool(var b) ->
-                        new ApplyState(new VBool(b), continuation);
-                    case Str(var s) ->
-                        new ApplyState(new VStr(s), continuation);
-                    case Conditional(var test, var ifTrue, var ifFalse) ->
-                        new EvalState(test, env, new IfFrame(env, ifTrue, ifFalse).then(continuation));
-                    case Let(var names, var inits, var body) ->
-                        evalList(inits, env, continuation, List.empty(),
-                            (values, k1) -> new EvalState(body, env.extend(names, values), k1));
-                    case Fn(var formals, var body) ->
-                        new ApplyState(new VFn(formals, body, env), continuation);
-                    case Call(var fnExp, var args) ->
-                        new EvalState(fnExp, env, new FnValFrame(args, env).then(continuation));
-                    case Seq(var exps) ->
-                        new EvalState(exps.first(), env, exps.rest() instanceof Cons<Exp> more
-                            ? new SeqFrame(more, env).then(continuation)
-                            : continuation);
-                    case InertObj() ->
-                        new ApplyState(new VObj(new Environment<>(List.empty())), continuation);
-                    case ExtendObj(var selector, var formals, var body, var base) -> {
-                        var method = new VFn(new Cons<>(new AtomSymbol("self"), formals), body, env);
-                        yield new EvalState(base, env, new ExtendObjFrame(method, selector).then(continuation));
-                    }
-                    case CallMethod(var objExp, var selector, var args) ->
-                        new EvalState(objExp, env, new ObjValFrame(env, selector, args).then(continuation));
-                    case Throw(var exnExp) ->
-                        throw new RuntimeException("UNIMPLEMENTED Throw in umlang.vm.VM");
-                    case TryCatch(var body, var exnVar, var handler) ->
-                        throw new RuntimeException("UNIMPLEMENTED TryCatch in umlang.vm.VM");
-                };
+                case EvalState(var exp, var env) ->
+                    state = fuse ? fused(exp, env) : evalStep(exp, env);
             }
         }
     }
 
-    private static MachineState invoke(Value fnVal, List<Value> argValues, List<Frame> continuation) throws InterpretationException {
-        return fnVal.invoke(
-            argValues,
-            (body, extended) -> new EvalState(body, extended, continuation),
-            (value) -> new ApplyState(value, continuation),
-            (exn) -> {
-                if (exn.error() instanceof UserException(var ue)) {
-                    throw new RuntimeException("UNIMPLEMENTED handling UserException from primitive in umlang.vm.VM");
-                } else {
+    /** Take one unfused step from evaluating `exp` in `env`. */
+    private MachineState evalStep(Exp exp, umlang.Frame env) throws InterpretationException {
+        return switch (exp) {
+            case Ref(var name) ->
+                new ApplyState(lookup(name));
+            case GlobalRef(var name, var cell) ->
+                new ApplyState(cell.get());
+            case LocalRef(var name, var depth, var index) ->
+                new ApplyState(env.lookup(depth, index));
+            case Num n ->
+                new ApplyState(n.constant());
+            case Bool b ->
+                new ApplyState(b.constant());
+            case Str s ->
+                new ApplyState(s.constant());
+            case Conditional(var test, var ifTrue, var ifFalse) ->
+                evalThen(test, env, new IfFrame(env, ifTrue, ifFalse));
+            case Let(var names, var inits, var body) ->
+                evalList(inits, env, List.empty(),
+                    (values) -> new EvalState(body, new umlang.Frame(values, env)));
+            case Fn(var formals, var body, var captures, var arity) ->
+                new ApplyState(new VFn(formals, body, env.capture(captures), arity));
+            case Call(var fnExp, var args) ->
+                evalThen(fnExp, env, new FnValFrame(args, env));
+            case Seq(var exps) ->
+                exps.rest() instanceof Cons<Exp> more
+                    ? evalThen(exps.first(), env, new SeqFrame(more, env))
+                    : new EvalState(exps.first(), env);
+            case InertObj() ->
+                new ApplyState(VObj.EMPTY);
+            case ExtendObj(var selector, var formals, var body, var base, var captures, var arity) -> {
+                var method = new VFn(new Cons<>(new AtomSymbol("self"), formals), body, env.capture(captures), arity + 1);
+                yield evalThen(base, env, new ExtendObjFrame(method, selector));
+            }
+            case PrimOp p ->
+                p.cell().isDeclared()
+                    ? new EvalState(p.asCall(), env)
+                    : evalList(p.args(), env, List.empty(),
+                        (values) -> new ApplyState(p.kind().apply(values)));
+            case CallMethod(var objExp, var selector, var args, var cache) ->
+                evalThen(objExp, env, new ObjValFrame(env, selector, args, cache));
+            case Throw(var exnExp) ->
+                throw new RuntimeException("UNIMPLEMENTED Throw in umlang.vm.VM");
+            case TryCatch(var body, var exnVar, var handler) ->
+                throw new RuntimeException("UNIMPLEMENTED TryCatch in umlang.vm.VM");
+        };
+    }
+
+    /** Take one step from evaluating `exp`, fusing it with the evaluation of its direct parts. */
+    private MachineState fused(Exp exp, umlang.Frame env) throws InterpretationException {
+        if (isDirect(exp)) {
+            return new ApplyState(direct(exp, env));
+        }
+        return switch (exp) {
+            case Conditional(var test, var ifTrue, var ifFalse) when isDirect(test) ->
+                new EvalState(direct(test, env).isTruthy() ? ifTrue : ifFalse, env);
+            case Call(var fnExp, var args) when isDirect(fnExp) && allDirect(args) -> {
+                var fnVal = direct(fnExp, env);
+                yield invoke(fnVal, directAll(args, env));
+            }
+            case Let(var names, var inits, var body) when allDirect(inits) ->
+                new EvalState(body, new umlang.Frame(directAll(inits, env), env));
+            case CallMethod(var objExp, var selector, var args, var cache) when isDirect(objExp) && allDirect(args) -> {
+                var receiver = direct(objExp, env);
+                var argVals = directInto(new Value[args.length() + 1], 1, args, env);
+                argVals[0] = receiver;
+                yield invoke(cache.lookup(receiver.asObj(), selector), argVals);
+            }
+            default -> evalStep(exp, env);
+        };
+    }
+
+    /** True iff `exp` is direct: see the class comment. */
+    private static boolean isDirect(Exp exp) {
+        return switch (exp) {
+            case Ref r -> true;
+            case GlobalRef g -> true;
+            case LocalRef l -> true;
+            case Num n -> true;
+            case Bool b -> true;
+            case Str s -> true;
+            case Fn f -> true;
+            case InertObj o -> true;
+            case PrimOp(var kind, var args, var cell) -> !cell.isDeclared() && allDirect(args);
+            default -> false;
+        };
+    }
+
+    private static boolean allDirect(List<Exp> exps) {
+        for (var e : exps) {
+            if (!isDirect(e)) return false;
+        }
+        return true;
+    }
+
+    /** Evaluate `exp`, which must be direct, in `env`. */
+    private Value direct(Exp exp, umlang.Frame env) throws InterpretationException {
+        return switch (exp) {
+            case Ref(var name) -> lookup(name);
+            case GlobalRef(var name, var cell) -> cell.get();
+            case LocalRef(var name, var depth, var index) -> env.lookup(depth, index);
+            case Num n -> n.constant();
+            case Bool b -> b.constant();
+            case Str s -> s.constant();
+            case Fn(var formals, var body, var captures, var arity) -> new VFn(formals, body, env.capture(captures), arity);
+            case InertObj() -> VObj.EMPTY;
+            case PrimOp(var kind, var args, var cell) -> switch (args) {
+                case Cons(var a, Nil()) -> kind.apply(direct(a, env));
+                case Cons(var a, Cons(var b, Nil())) -> {
+                    var x = direct(a, env);
+                    yield kind.apply(x, direct(b, env));
+                }
+                default -> kind.apply(directAll(args, env));
+            };
+            default -> throw new IllegalStateException("Not direct: " + exp);
+        };
+    }
+
+    private Value[] directAll(List<Exp> exps, umlang.Frame env) throws InterpretationException {
+        return directInto(new Value[exps.length()], 0, exps, env);
+    }
+
+    /** Evaluate each of `exps`, which must be direct, in `env`, into `values` from index `start`. */
+    private Value[] directInto(Value[] values, int start, List<Exp> exps, umlang.Frame env) throws InterpretationException {
+        var i = start;
+        for (var e : exps) {
+            values[i++] = direct(e, env);
+        }
+        return values;
+    }
+
+    /** Answer the state that calls `fnVal` with `args`. */
+    private MachineState invoke(Value fnVal, Value[] args) throws InterpretationException {
+        return switch (fnVal) {
+            case VFn fn -> new EvalState(fn.body(), fn.enter(args));
+            case VPrim prim -> {
+                try {
+                    yield new ApplyState(prim.call(this, args));
+                } catch (InterpretationException exn) {
+                    if (exn.error() instanceof UserException(var ue)) {
+                        throw new RuntimeException("UNIMPLEMENTED handling UserException from primitive in umlang.vm.VM");
+                    }
                     throw exn;
                 }
-            });
+            }
+            default -> new ExpectedFn(fnVal).signal();
+        };
+    }
+
+    @Override
+    public Value apply(Value fn, Value[] args) throws InterpretationException {
+        return execute(invoke(fn, args));
     }
 
     @Override
-    public Value callMethod(Value receiver, AtomSymbol selector, List<Value> arguments) throws InterpretationException {
-        return execute(invoke(receiver.asObj().lookup(selector), new Cons<>(receiver, arguments), List.empty()));
+    public Value callMethod(Value receiver, AtomSymbol selector, Value... arguments) throws InterpretationException {
+        return execute(invoke(receiver.asObj().lookup(selector), withReceiver(receiver, arguments)));
     }
 
-    private static MachineState evalList(
+    /**
+     * Declare the definitions of `program`, as evaluateProgram does, and answer a Process that runs it on
+     * this VM a slice at a time.
+     */
+    public Process spawn(List<ToplevelClause> program) {
+        for (var c : program) {
+            if (c instanceof Definition def) {
+                globals().declare(def.name());
+            }
+        }
+        return new Process(program);
+    }
+
+    /**
+     * A Process is a program running on its VM in slices of a bounded number of steps, like evaluateProgram
+     * but preemptible. Between slices the whole of its computation is its MachineState and its own frame
+     * stack, so a slice can end after any step, and the next can be run later, on any thread. Only one
+     * thread may run a VM's Processes, or use the VM otherwise, at a time.
+     */
+    public final class Process {
+        private final FrameStack<Frame> frames = new FrameStack<>();
+        private List<ToplevelClause> remaining;
+        /** The state of the current clause, or null between clauses. */
+        private MachineState state = null;
+        /** The name the current clause defines, or null if it is an Exp. */
+        private AtomSymbol defining = null;
+        private Maybe<Value> result = new None<>();
+
+        private Process(List<ToplevelClause> program) {
+            this.remaining = program;
+        }
+
+        /**
+         * Run the program for at most `fuel` more steps, answering true iff it has finished. An error
+         * finishes it too, and is signalled from here.
+         */
+        public boolean run(long fuel) throws InterpretationException {
+            var saved = stack;
+            stack = frames;
+            try {
+                while (fuel > 0) {
+                    if (state == null) {
+                        if (!(remaining instanceof Cons<ToplevelClause>(var clause, var rest))) {
+                            return true;
+                        }
+                        remaining = rest;
+                        switch (clause) {
+                            case Definition(var name, var initializer) -> {
+                                defining = name;
+                                state = new EvalState(prepare(initializer), umlang.Frame.EMPTY);
+                            }
+                            case Exp e -> {
+                                defining = null;
+                                state = new EvalState(prepare(e), umlang.Frame.EMPTY);
+                            }
+                        }
+                    }
+                    var before = steps;
+                    state = VM.this.run(state, 0, fuel);
+                    fuel -= steps - before;
+                    if (state instanceof ApplyState(var value) && frames.depth() == 0) {
+                        if (defining != null) {
+                            globals().set(defining, value);
+                            result = new None<>();
+                        } else {
+                            result = new Some<>(value);
+                        }
+                        state = null;
+                    }
+                }
+                return isDone();
+            } catch (InterpretationException | RuntimeException e) {
+                state = null;
+                remaining = List.empty();
+                frames.truncate(0);
+                throw e;
+            } finally {
+                stack = saved;
+            }
+        }
+
+        /** True iff the program has finished, or failed. */
+        public boolean isDone() {
+            return state == null && remaining instanceof Nil;
+        }
+
+        /** The program's final result, if any, as evaluateProgram would answer it. */
+        public Maybe<Value> result() {
+            return result;
+        }
+    }
+
+    private MachineState evalList(
         List<Exp> remaining,
-        Environment<Value> env,
-        List<Frame> continuation,
+        umlang.Frame env,
         List<Value> doneRev,
-        ThrowingBiFunction<List<Value>, List<Frame>, MachineState, InterpretationException> whenComplete
+        ThrowingFunction<Value[], MachineState, InterpretationException> whenComplete
     ) throws InterpretationException {
+        // When fusing, direct elements are evaluated here rather than each taking a step and a frame.
+        while (fuse && remaining instanceof Cons<Exp>(var first, var rest) && isDirect(first)) {
+            doneRev = new Cons<>(direct(first, env), doneRev);
+            remaining = rest;
+        }
         return switch (remaining) {
-            case Nil<Exp> ignored -> whenComplete.apply(doneRev.reverse(), continuation);
-            case Cons(var first, var rest) -> new EvalState(first, env, new EvalListFrame(doneRev, whenComplete, env, rest).then(continuation));
+            case Nil<Exp> ignored -> whenComplete.apply(toArray(doneRev));
+            case Cons(var first, var rest) -> evalThen(first, env, new EvalListFrame(doneRev, whenComplete, env, rest));
         };
     }
 
+    /** Answer the values of `doneRev` as an array, in the order they were evaluated. */
+    private static Value[] toArray(List<Value> doneRev) {
+        var values = new Value[doneRev.length()];
+        var i = values.length;
+        for (var v : doneRev) {
+            values[--i] = v;
+        }
+        return values;
+    }
+
+    /** Push `frame`, then evaluate `exp` in `env` to give it its value. */
+    private EvalState evalThen(Exp exp, umlang.Frame env, Frame frame) {
+        stack.push(frame);
+        return new EvalState(exp, env);
+    }
+
     // True if each machine state should be printed. Crude debugging/monitoring.
     private static final boolean noisy;
     static {
@@ -2,11 +2,18 @@ package umlang.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -17,13 +24,20 @@ import immutable.ThrowingConsumer;
 import syntax.AtomSymbol;
 import umlang.Entry;
 import umlang.Environment;
+import umlang.Frame;
+import umlang.GlobalEnvironment;
 import umlang.Interpreter;
+import umlang.RecursiveInterpreter;
 import umlang.ast.*;
 import umlang.errors.ExpectedBool;
 import umlang.errors.ExpectedCell;
 import umlang.errors.ExpectedFn;
 import umlang.errors.ExpectedNum;
+import umlang.errors.ExpectedMap;
 import umlang.errors.ExpectedObj;
+import umlang.errors.ExpectedStr;
+import umlang.errors.ExpectedVec;
+import umlang.errors.IndexOutOfRange;
 import umlang.errors.BadArgumentCount;
 import umlang.errors.Error;
 import umlang.errors.InterpretationException;
@@ -90,15 +104,15 @@ public class TestInterp {
         checkRun("{let {{x 123} {y 234}} {+ x y}}", new VNum(357));
         checkRun("{fn {x} {+ x 1}}",
             new VFn(List.of(new AtomSymbol("x")),
-                new Call(ref("+"), List.of(ref("x"), new Num(1))),
-                new Environment<>()));
+                new PrimOp(PrimOp.Kind.ADD, List.of(new LocalRef(new AtomSymbol("x"), 0, 0), new Num(1)), interpreter.link(new AtomSymbol("+"))),
+                Frame.EMPTY));
         checkRun("{{fn {x} {+ x 1}} 123}", new VNum(124));
         checkRun("{{fn {x y} {+ x y}} 123 234}", new VNum(357));
         checkRun("{obj {:f {x} 1}}", new VObj(new Environment<>(List.of(
             new Entry<>(new AtomSymbol(":f"),
                 new VFn(List.of(new AtomSymbol("self"), new AtomSymbol("x")),
                     new Num(1),
-                    new Environment<>()))))));
+                    Frame.EMPTY))))));
     }
 
     @Test void testTruthiness() throws InterpretationException {
@@ -107,7 +121,7 @@ public class TestInterp {
         checkRunError("{if -1 1 2}", new ExpectedBool(new VNum(-1)));
         checkRunError("{if 100 1 2}", new ExpectedBool(new VNum(100)));
         checkRunError("{if 0 1 2}", new ExpectedBool(new VNum(0)));
-        checkRunError("{if {fn {} #t} 1 2}", new ExpectedBool(new VFn(List.of(), new Bool(true), new Environment<>())));
+        checkRunError("{if {fn {} #t} 1 2}", new ExpectedBool(new VFn(List.of(), new Bool(true), Frame.EMPTY)));
         checkRunError("{if {obj} 1 2}", new ExpectedBool(new VObj(new Environment<>(List.of()))));
         checkRunError("{if \"hi\" 1 2}", new ExpectedBool(new VStr("hi")));
         checkRunError("{if \"\" 1 2}", new ExpectedBool(new VStr("")));
@@ -203,6 +217,22 @@ public class TestInterp {
             new UnboundVariable(new AtomSymbol("x")));
     }
 
+    @Test void testFlatClosures() throws IOException, InterpretationException {
+        // Closures retain only their free variables, not the whole enclosing environment.
+        var f = interpreter.evaluate("""
+            {let {{x 1} {unused {cell 0}}}
+              {fn {y} {+ x y}}}""");
+        assertInstanceOf(VFn.class, f);
+        var env = ((VFn) f).env();
+        assertEquals(null, env.parent());
+        assertEquals(java.util.List.of(new VNum(1)), java.util.List.of(env.slots()));
+
+        checkRun("""
+            {let {{x 1}}
+              {let {{f {fn {} {fn {} x}}}}
+                {{f}}}}""", new VNum(1));
+    }
+
     @Test void testAnimalExample() throws IOException {
         var output = checkRun("""
             {let {{animal {obj {:greet {who} {seq {display "Hello, "}
@@ -250,12 +280,65 @@ public class TestInterp {
         assertEquals(new MethodNotFound(new AtomSymbol(":first")), runToError(() -> interpreter.callMethod(last, new AtomSymbol(":first"), List.empty())));
     }
 
+    @Test void testPolymorphicSends() throws IOException {
+        // A single `:m` send site sees more receivers than its inline cache holds, then sees them all again.
+        checkRun("""
+            {let {{send {fn {o} {o :m}}}
+                  {a {obj {:m {} 1}}}
+                  {b {obj {:m {} 2}}}
+                  {c {obj {:m {} 3}}}
+                  {d {obj {:m {} 4}}}
+                  {e {obj {:n {} 0} #:base {obj {:m {} 5}}}}
+                  {f {obj {:m {} 6}}}}
+              {let {{once {fn {} {+ {+ {+ {send a} {send b}} {+ {send c} {send d}}} {+ {send e} {send f}}}}}}
+                {+ {once} {once}}}}""",
+            new VNum(42));
+        checkRunError("""
+            {let {{send {fn {o} {o :m}}}}
+              {seq {send {obj {:m {} 1}}}
+                   {send {obj {:n {} 2}}}}}""",
+            new MethodNotFound(new AtomSymbol(":m")));
+    }
+
+    @Test void testShapes() throws IOException, InterpretationException {
+        var o1 = interpreter.evaluate("{obj {:a {} 1} {:b {} 2}}").asObj();
+        var o2 = interpreter.evaluate("{obj {:a {} 10} {:b {} 20}}").asObj();
+        assertEquals(true, o1.shape() == o2.shape());
+        assertEquals(2, o1.slots().length);
+
+        // Overriding a method keeps the shape and replaces the slot.
+        var o3 = interpreter.evaluate("{obj {:a {} 3} #:base {obj {:a {} 1} {:b {} 2}}}").asObj();
+        assertEquals(true, o1.shape() == o3.shape());
+        assertEquals(new VNum(3), interpreter.callMethod(o3, new AtomSymbol(":a"), List.empty()));
+        assertEquals(new VNum(2), interpreter.callMethod(o3, new AtomSymbol(":b"), List.empty()));
+
+        // Larger shapes hash their selectors; every method is still found, and missing ones are not.
+        var methods = new StringBuilder("{obj");
+        for (var i = 0; i < 40; i++) {
+            methods.append(" {:m").append(i).append(" {} ").append(i).append("}");
+        }
+        var big = interpreter.evaluate(methods.append("}").toString()).asObj();
+        for (var i = 0; i < 40; i++) {
+            assertEquals(new VNum(i), interpreter.callMethod(big, new AtomSymbol(":m" + i), List.empty()));
+        }
+        assertEquals(-1, big.shape().slotOf(Selector.id(new AtomSymbol(":missing"))));
+    }
+
     @Test void testMethodNotFound() {
         checkRunError("{{obj} :no}", new MethodNotFound(new AtomSymbol(":no")));
         checkRunError("{{obj {:yes {} 1}} :no}", new MethodNotFound(new AtomSymbol(":no")));
         checkRunError("{{obj {:yes {} 1} #:base {obj {:alsoYes {} 2}}} :no}", new MethodNotFound(new AtomSymbol(":no")));
     }
 
+    @Test void testSendEvaluatesArgumentsBeforeLookup() {
+        // The receiver and every argument are evaluated, in order, before the method is looked up.
+        var errors = new ArrayList<Throwable>();
+        assertEquals("12", checkRun("{{seq {display 1} {obj}} :foo {seq {display 2} 3}}", null, errors::add));
+        assertEquals("12", checkRun("{{seq {display 1} 5} :foo {seq {display 2} 3}}", null, errors::add));
+        assertEquals(new MethodNotFound(new AtomSymbol(":foo")), assertInstanceOf(InterpretationException.class, errors.get(0)).error());
+        assertEquals(new ExpectedObj(new VNum(5)), assertInstanceOf(InterpretationException.class, errors.get(1)).error());
+    }
+
     @Test void testThrowCatch() {
         checkRun("{catch {+ {throw 123} 234} {exn} exn}", new VNum(123));
         checkRun("{catch {+ 123 234} {exn} exn}", new VNum(357));
@@ -291,6 +374,18 @@ public class TestInterp {
         assertEquals(new UnboundVariable(new AtomSymbol("f")), runToError(() -> interpreter.evaluateProgram("{define g {fn {} {f}}} {g}")));
     }
 
+    @Test void testGlobalCells() throws ParseError, InterpretationException, IOException {
+        // `add` is linked to the cell for `+` while it still holds the primitive; redefining `+` later
+        // must be seen through that same cell.
+        interpreter.evaluateProgram("{define add {fn {x y} {+ x y}}}");
+        assertEquals(new VNum(3), interpreter.evaluateProgram("{add 1 2}").unwrap());
+        assertEquals(new VNum(-1), interpreter.evaluateProgram("{define + {fn {x y} {- x y}}} {add 1 2}").unwrap());
+
+        var cell = interpreter.link(new AtomSymbol("add"));
+        assertEquals(true, cell.isInitialized());
+        assertEquals(false, interpreter.link(new AtomSymbol("nope")).isDeclared());
+    }
+
     @Test void testRecursiveProgram() throws ParseError, InterpretationException, IOException {
         assertEquals(new VBool(true), interpreter.evaluateProgram("""
             {define zero? {fn {x} {= x 0}}}
@@ -300,6 +395,273 @@ public class TestInterp {
             """).unwrap());
     }
 
+    @Test void testDeepTailCalls() throws ParseError, InterpretationException, IOException {
+        // Deep enough to overflow the Java stack if tail calls each took a Java frame. The VM and bytecode
+        // engines keep their continuations off the Java stack anyway; this checks the RecursiveInterpreter.
+        var interpreter = new RecursiveInterpreter();
+        assertEquals(new VBool(true), interpreter.evaluateProgram("""
+            {define zero? {fn {x} {= x 0}}}
+            {define even? {fn {x} {if {zero? x} #t {odd? {- x 1}}}}}
+            {define odd? {fn {x} {if {zero? x} #f {even? {- x 1}}}}}
+            {odd? 200001}
+            """).unwrap());
+        assertEquals(new VNum(200000), interpreter.evaluateProgram("""
+            {define counter {obj {:count {n acc} {let {{next {+ acc 1}}}
+                                                   {if {= n 0} acc {seq {self :count {- n 1} next}}}}}}}
+            {counter :count 200000 0}
+            """).unwrap());
+    }
+
+    @Test void testUnboxedNumbers() throws ParseError, InterpretationException, IOException {
+        // A slot holding an unboxed number is boxed on its first read as a Value, and keeps that box.
+        var frame = new Frame(new Value[] { new VStr("a"), null }, new double[] { 0, 2.5 }, null);
+        var boxed = frame.lookup(0, 1);
+        assertEquals(new VNum(2.5), boxed);
+        assertSame(boxed, frame.lookup(0, 1));
+        assertEquals(new VStr("a"), frame.lookup(0, 0));
+
+        // Numbers passed through arguments and lets, then escaping into closures, cells and `=`.
+        assertEquals(new VNum(300), interpreter.evaluateProgram("""
+            {define loop {fn {n acc} {let {{next {+ acc 3}}} {if {= n 0} acc {loop {- n 1} next}}}}}
+            {loop 100 0}
+            """).unwrap());
+        assertEquals(new VNum(9), interpreter.evaluateProgram("""
+            {define capture {fn {x} {fn {} {* x x}}}}
+            {define box {fn {x} {cell x}}}
+            {seq {capture {+ 1 2}} {capture {+ 1 2}} {get {box {- 10 1}}}}
+            """).unwrap());
+        // An operand that stops being a number still signals the primitive's error.
+        interpreter.evaluateProgram("{define add {fn {a b} {+ {* a 1} b}}} {add 1 2} {add 3 4}");
+        assertEquals(new ExpectedNum(new VBool(true)), runToError(() -> interpreter.evaluateProgram("{add #t 1}")));
+        assertEquals(new VNum(7), interpreter.evaluateProgram("{add 3 4}").unwrap());
+    }
+
+    @Test void testCanonicalValues() throws ParseError, InterpretationException, IOException {
+        assertSame(VBool.TRUE, interpreter.evaluate("{= 1 1}"));
+        assertSame(VBool.FALSE, interpreter.evaluate("#f"));
+        assertSame(interpreter.evaluate("{+ 40 2}"), interpreter.evaluate("42"));
+        assertSame(interpreter.evaluate("{newline}"), interpreter.evaluate("0"));
+        assertEquals(new VNum(-0.0), interpreter.evaluate("{* -1 0}"));
+        assertEquals(new VNum(1e9), interpreter.evaluate("{* 1000 1000000}"));
+
+        var literal = new Str("hello");
+        assertSame(literal.constant(), interpreter.evaluate(literal));
+    }
+
+    @Test void testArrayCallingConvention() throws IOException, InterpretationException {
+        var fn = (VFn) interpreter.evaluate("{fn {a b c} a}");
+        assertEquals(3, fn.arity());
+        assertEquals(new BadArgumentCount(3, 1), runToError(() -> fn.enter(new Value[] { new VNum(1) })));
+
+        Prim2 pair = (a, b) -> new VNum(a.asNum() * 10 + b.asNum());
+        var prim = new VPrim(pair);
+        assertEquals(2, prim.arity());
+        assertEquals(new VNum(34), prim.call(new Value[] { new VNum(3), new VNum(4) }));
+        assertEquals(new BadArgumentCount(2, 0), runToError(() -> prim.call(new Value[0])));
+
+        var o = interpreter.evaluate("{obj {:sub {a b} {- a b}}}");
+        assertEquals(new VNum(3), interpreter.callMethod(o, new AtomSymbol(":sub"), new VNum(5), new VNum(2)));
+        assertEquals(new BadArgumentCount(3, 2), runToError(() -> interpreter.callMethod(o, new AtomSymbol(":sub"), new VNum(5))));
+    }
+
+    @Test void testSharedGlobals() throws Exception {
+        var globals = new GlobalEnvironment<Value>();
+        Interpreter.newDefault(globals).evaluateProgram("""
+            {define fib {fn {n} {if {= n 0} 0 {if {= n 1} 1 {+ {fib {- n 1}} {fib {- n 2}}}}}}}
+            {define points {obj {:at {x y} {obj {:x {} x} {:y {} y}}}}}
+            """);
+        var threads = new Thread[4];
+        var failures = new ConcurrentLinkedQueue<Throwable>();
+        for (var t = 0; t < threads.length; t++) {
+            var id = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    var interpreter = Interpreter.newDefault(globals);
+                    for (var i = 0; i < 50; i++) {
+                        assertEquals(new VNum(610), interpreter.evaluate("{fib 15}"));
+                        assertEquals(new VNum(i + id), interpreter.evaluate("{let {{p {points :at " + i + " " + id + "}}} {+ {p :x} {p :y}}}"));
+                        // Each thread also defines globals of its own while the others read.
+                        interpreter.evaluateProgram("{define g" + id + "-" + i + " " + i + "}");
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads[t].start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), "Failures: " + failures);
+        assertEquals(new VNum(49), Interpreter.newDefault(globals).evaluate("g3-49"));
+    }
+
+    /** Run `program` on a fresh interpreter, in parallel on `pool` if it is non-null, answering its output and result. */
+    private String runProgram(String program, ForkJoinPool pool) throws Exception {
+        var fresh = Interpreter.newDefault();
+        fresh.setParallelism(pool);
+        var collector = new ByteArrayOutputStream();
+        var saved = System.out;
+        System.setOut(new PrintStream(collector));
+        try {
+            return fresh.evaluateProgram(program).unwrap().toDisplayableString() + " after " + collector;
+        } finally {
+            System.setOut(saved);
+        }
+    }
+
+    @Test void testParallelDefinitions() throws Exception {
+        var pool = new ForkJoinPool(4);
+        var program = """
+            {define fib {fn {n} {if {= n 0} 0 {if {= n 1} 1 {+ {fib {- n 1}} {fib {- n 2}}}}}}}
+            {define t1 {fib 16}} {define t2 {fib 17}} {define t3 {fib 15}} {define t4 {fib 14}}
+            {display "a"}
+            {define c {cell 0}}
+            {set c {+ t1 t2}}
+            {define total {+ {get c} {+ t3 t4}}}
+            {display total}
+            {define late {fn {} {display "b"}}}
+            {late}
+            total
+            """;
+        assertEquals(runProgram(program, null), runProgram(program, pool));
+        assertEquals("3571 after a3571b", runProgram(program, pool));
+
+        // Errors are those of running the clauses in order, and effects after a failure do not happen.
+        var forward = Interpreter.newDefault();
+        forward.setParallelism(pool);
+        assertEquals(new UninitializedGlobal(new AtomSymbol("b")), runToError(() -> forward.evaluateProgram("{define a b} {define b 1} a")));
+        var failing = Interpreter.newDefault();
+        failing.setParallelism(pool);
+        var output = new ByteArrayOutputStream();
+        var saved = System.out;
+        System.setOut(new PrintStream(output));
+        try {
+            assertEquals(new ExpectedNum(new VBool(true)), runToError(() -> failing.evaluateProgram("{define x {+ 1 #t}} {display 1} {define y 2}")));
+        } finally {
+            System.setOut(saved);
+        }
+        assertEquals("", output.toString());
+        pool.shutdown();
+    }
+
+    @Test void testVectors() {
+        checkRun("{vector-length {make-vector 3 0}}", new VNum(3));
+        checkRun("{let {{v {make-vector 3 0}}} {seq {vector-set! v 1 5} {vector-ref v 1}}}", new VNum(5));
+        checkRun("{let {{v {make-vector 3 7}}} {vector-set! v 2 5}}", new VNum(7));
+        checkRun("{let {{v {make-vector 2 1}}} {let {{w {vector-copy v}}} {seq {vector-set! w 0 9} {vector-ref v 0}}}}", new VNum(1));
+        assertEquals("#(1 #(#t #t) 1)", checkRun("{let {{v {make-vector 3 1}}} {seq {vector-set! v 1 {make-vector 2 #t}} {display v}}}", new VNum(0)));
+        assertEquals("#(-1 0 3 3 5 8)", checkRun("""
+            {let {{v {make-vector 6 0}}}
+              {seq {vector-set! v 0 5} {vector-set! v 1 3} {vector-set! v 2 8} {vector-set! v 3 3} {vector-set! v 4 -1}
+                   {vector-sort! v}
+                   {display v}}}
+            """, new VNum(0)));
+
+        // = compares vectors element by element.
+        checkRun("{= {make-vector 2 {make-vector 1 3}} {make-vector 2 {make-vector 1 3}}}", new VBool(true));
+        checkRun("{= {make-vector 2 3} {make-vector 3 3}}", new VBool(false));
+        checkRun("{= {make-vector 1 {cell 0}} {make-vector 1 {cell 0}}}", new VBool(false));
+
+        checkRunError("{vector-ref {make-vector 2 0} 2}", new IndexOutOfRange(2, 2));
+        checkRunError("{vector-ref {make-vector 2 0} 0.5}", new IndexOutOfRange(0.5, 2));
+        checkRunError("{make-vector -1 0}", new IndexOutOfRange(-1, Integer.MAX_VALUE));
+        checkRunError("{vector-length 3}", new ExpectedVec(new VNum(3)));
+        checkRunError("{vector-sort! {make-vector 2 #f}}", new ExpectedNum(new VBool(false)));
+    }
+
+    @Test void testMaps() throws Exception {
+        interpreter.evaluateProgram("""
+            {define m {make-map}}
+            {define v {make-vector 1 0}}
+            {map-put! m 1 "one"} {map-put! m "one" 1} {map-put! m v "v"} {map-put! m 1 "uno"}
+            """);
+        checkRun("{map-size m}", new VNum(3));
+        checkRun("{map-get m 1 #f}", new VStr("uno"));
+        checkRun("{map-get m \"one\" #f}", new VNum(1));
+        checkRun("{map-get m 2 #f}", new VBool(false));
+        // Keys that are not structural, such as vectors, are only the same key as themselves.
+        checkRun("{map-get m v #f}", new VStr("v"));
+        checkRun("{map-get m {vector-copy v} #f}", new VBool(false));
+        checkRun("{map-remove! m 1}", new VBool(true));
+        checkRun("{map-remove! m 1}", new VBool(false));
+        checkRun("{vector-length {map-keys m}}", new VNum(2));
+        assertEquals("#<VMap {one 1}>", checkRun("{let {{n {make-map}}} {seq {map-put! n \"one\" 1} {display n}}}", new VNum(0)));
+        checkRunError("{map-size 3}", new ExpectedMap(new VNum(3)));
+
+        // Enough keys to grow the table, with removals shifting probe sequences, agree with a HashMap.
+        var map = new VMap();
+        var expected = new HashMap<Value, Value>();
+        var random = new Random(24);
+        for (var i = 0; i < 20000; i++) {
+            var key = VNum.of(random.nextInt(2000));
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, VNum.of(i)), map.put(key, VNum.of(i)));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (var i = 0; i < 2000; i++) {
+            assertEquals(expected.get(VNum.of(i)), map.get(VNum.of(i)));
+        }
+    }
+
+    @Test void testStrings() throws Exception {
+        checkRun("{string-append \"ab\" \"cd\"}", new VStr("abcd"));
+        checkRun("{string-length {string-append \"ab\" \"cd\"}}", new VNum(4));
+        checkRun("{substring \"hello\" 1 3}", new VStr("el"));
+        checkRun("{substring \"hello\" 5 5}", new VStr(""));
+        checkRun("{string-ref \"hello\" 4}", new VStr("o"));
+        checkRun("{number->string 2.5}", new VStr("2.5"));
+        checkRun("{number->string 3}", new VStr("3"));
+        checkRun("{string->number \"-12\"}", new VNum(-12));
+        checkRun("{string->number \"1e3\"}", new VNum(1000));
+        checkRun("{string->number \"12abc\"}", new VBool(false));
+        checkRun("{string-join {make-vector 3 \"ab\"} \", \"}", new VStr("ab, ab, ab"));
+        checkRun("{= {string-append \"a\" \"b\"} \"ab\"}", new VBool(true));
+
+        interpreter.evaluateProgram("""
+            {define build {fn {s i} {if {= i 0} s {build {string-append s {number->string i}} {- i 1}}}}}
+            {define report {build "" 2000}}
+            """);
+        checkRun("{string-length report}", new VNum(6893));
+        checkRun("{substring report 0 8}", new VStr("20001999"));
+        checkRun("{string-ref report 6892}", new VStr("1"));
+
+        checkRunError("{string-append \"a\" 1}", new ExpectedStr(new VNum(1)));
+        checkRunError("{substring \"hello\" 3 2}", new IndexOutOfRange(3, 3));
+        checkRunError("{string-ref \"hello\" 5}", new IndexOutOfRange(5, 5));
+
+        // However it is built, a rope has the characters of the strings concatenated into it.
+        var random = new Random(25);
+        var rope = new VStr("");
+        var expected = new StringBuilder();
+        for (var i = 0; i < 5000; i++) {
+            var piece = "x".repeat(random.nextInt(100)) + i;
+            if (random.nextBoolean()) {
+                rope = rope.concat(new VStr(piece));
+                expected.append(piece);
+            } else {
+                rope = new VStr(piece).concat(rope);
+                expected.insert(0, piece);
+            }
+        }
+        assertEquals(expected.length(), rope.length());
+        assertEquals(expected.charAt(expected.length() / 2), rope.charAt(expected.length() / 2).value().charAt(0));
+        assertEquals(expected.toString(), rope.value());
+        assertEquals(new VStr(expected.toString()), rope);
+    }
+
+    @Test void testParallelPrimitives() {
+        checkRun("{preduce 0 100 {fn {i} {* i i}} + 0}", new VNum(328350));
+        checkRun("{preduce 5 5 {fn {i} i} + 42}", new VNum(42));
+        assertEquals("x".repeat(50), checkRun("{pfor-range 0 50 {fn {i} {display \"x\"}}}", new VNum(0)));
+        checkRunError("{pfor-range 0 10 {fn {i} {if {= i 7} {+ #t 1} 0}}}", new ExpectedNum(new VBool(true)));
+        checkRunError("{preduce 0 3 5 + 0}", new ExpectedFn(new VNum(5)));
+        assertEquals("#(0 1 4 9)", checkRun("{let {{v {make-vector 4 0}}} {seq {pfor-range 0 4 {fn {i} {vector-set! v i i}}} {display {pmap {fn {x} {* x x}} v}}}}", new VNum(0)));
+    }
+
     @Test void testArithmetic() {
         checkRun("{+ 3 4}", new VNum(7));
         checkRun("{- 3 4}", new VNum(-1));
@@ -0,0 +1,77 @@
+package umlang.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import syntax.AtomSymbol;
+import umlang.RecursiveInterpreter;
+import umlang.ast.ParseError;
+import umlang.errors.InterpretationException;
+import umlang.jit.Jit;
+import umlang.value.*;
+
+public class TestJit {
+    private RecursiveInterpreter interpreter = new RecursiveInterpreter();
+    // Threshold 0: compile on the first call.
+    private Jit jit = new Jit(interpreter.globals(), 0);
+
+    private VFn global(String name) {
+        return (VFn) interpreter.globals().lookup(new AtomSymbol(name)).unwrap().unwrap();
+    }
+
+    @Test void testCompilesNumericKernels() throws ParseError, InterpretationException, IOException {
+        interpreter.evaluateProgram("""
+            {define fib {fn {n} {if {= n 0} 0 {if {= n 1} 1 {+ {fib {- n 1}} {fib {- n 2}}}}}}}
+            {define zero? {fn {x} {= x 0}}}
+            {define even? {fn {x} {if {zero? x} #t {odd? {- x 1}}}}}
+            {define odd? {fn {x} {if {zero? x} #f {even? {- x 1}}}}}
+            {define avg {fn {a b} {let {{sum {+ a b}}} {/ sum 2}}}}
+            """);
+        assertEquals(new VNum(6765), jit.tryInvoke(global("fib"), new Value[] { new VNum(20) }));
+        assertTrue(jit.isCompiled(global("fib")));
+        // A cycle of tail calls runs in constant space when interpreted, but would not when compiled.
+        assertNull(jit.tryInvoke(global("odd?"), new Value[] { new VNum(11) }));
+        assertFalse(jit.isCompiled(global("odd?")));
+        assertEquals(new VNum(2.5), jit.tryInvoke(global("avg"), new Value[] { new VNum(2), new VNum(3) }));
+    }
+
+    @Test void testFallsBack() throws ParseError, InterpretationException, IOException {
+        interpreter.evaluateProgram("""
+            {define inc {fn {n} {+ n 1}}}
+            {define half {fn {n} {/ 1 n}}}
+            {define show {fn {n} {display n}}}
+            {define sum {fn {n} {if {= n 0} 0 {+ n {sum {- n 1}}}}}}
+            """);
+        // Non-numeric arguments and wrong arity are left to the interpreter.
+        assertNull(jit.tryInvoke(global("inc"), new Value[] { new VStr("x") }));
+        assertNull(jit.tryInvoke(global("inc"), new Value[] { new VNum(1), new VNum(2) }));
+        // Division by zero deoptimizes, so that the interpreter signals the error.
+        assertEquals(new VNum(0.5), jit.tryInvoke(global("half"), new Value[] { new VNum(2) }));
+        assertNull(jit.tryInvoke(global("half"), new Value[] { new VNum(0) }));
+        // Side effects are never compiled.
+        assertNull(jit.tryInvoke(global("show"), new Value[] { new VNum(1) }));
+        assertFalse(jit.isCompiled(global("show")));
+        // Compiled calls nested too deeply deoptimize, and give up the compiled code for good.
+        assertEquals(new VNum(55), jit.tryInvoke(global("sum"), new Value[] { new VNum(10) }));
+        assertNull(jit.tryInvoke(global("sum"), new Value[] { new VNum(5000) }));
+        assertFalse(jit.isCompiled(global("sum")));
+    }
+
+    @Test void testRedefinitionInvalidates() throws ParseError, InterpretationException, IOException {
+        interpreter.evaluateProgram("""
+            {define step {fn {n} {+ n 1}}}
+            {define twice {fn {n} {step {step n}}}}
+            """);
+        var twice = global("twice");
+        assertEquals(new VNum(3), jit.tryInvoke(twice, new Value[] { new VNum(1) }));
+        interpreter.evaluateProgram("{define step {fn {n} {* n 10}}}");
+        assertNull(jit.tryInvoke(twice, new Value[] { new VNum(1) }));
+        assertEquals(new VNum(100), jit.tryInvoke(twice, new Value[] { new VNum(1) }));
+    }
+}
@@ -0,0 +1,77 @@
+package umlang.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import syntax.AtomSymbol;
+import syntax.Term;
+import umlang.Frame;
+import umlang.ast.Parser;
+import umlang.ast.Resolver;
+import umlang.errors.InterpretationException;
+import umlang.node.*;
+import umlang.value.*;
+
+public class TestNodes {
+    private NodeInterpreter interpreter = new NodeInterpreter();
+
+    /** Compile `source` as the body of a one-argument function of `x`. */
+    private RootNode compileBody(String source) throws IOException {
+        var fn = (umlang.ast.Fn) Resolver.resolve(Parser.parse(Term.readFrom("{fn {x} " + source + "}")));
+        return new RootNode(NodeCompiler.compile(fn.body(), interpreter));
+    }
+
+    private Value run(RootNode root, Value x) throws InterpretationException {
+        return root.execute(new Frame(new Value[] { x }, Frame.EMPTY));
+    }
+
+    @Test void testArithmeticSpecializes() throws IOException, InterpretationException {
+        var root = compileBody("{+ x 1}");
+        assertInstanceOf(UninitializedArithNode.class, root.body());
+        assertEquals(new VNum(3), run(root, new VNum(2)));
+        assertInstanceOf(DoubleArithNode.class, root.body());
+        assertEquals(new VNum(4), run(root, new VNum(3)));
+        assertInstanceOf(DoubleArithNode.class, root.body());
+
+        // A non-number invalidates the assumption, and the node goes generic for good.
+        assertThrows(InterpretationException.class, () -> run(root, new VStr("a")));
+        assertInstanceOf(GenericArithNode.class, root.body());
+        assertEquals(new VNum(5), run(root, new VNum(4)));
+        assertInstanceOf(GenericArithNode.class, root.body());
+    }
+
+    @Test void testNestedSpecialization() throws IOException, InterpretationException {
+        var root = compileBody("{if {= x 0} 1 {* x {- x 1}}}");
+        assertEquals(new VNum(12), run(root, new VNum(4)));
+        var ifNode = assertInstanceOf(IfNode.class, root.body());
+        assertEquals(root, ifNode.parent());
+    }
+
+    @Test void testShadowedOperator() throws Exception {
+        var root = compileBody("{+ x 1}");
+        assertEquals(new VNum(3), run(root, new VNum(2)));
+        interpreter.evaluateProgram("{define + {fn {a b} {- a b}}}");
+        assertEquals(new VNum(1), run(root, new VNum(2)));
+        assertInstanceOf(CallNode.class, root.body());
+        assertEquals(new VNum(-1), interpreter.evaluate("{+ 1 2}"));
+        assertEquals(new AtomSymbol("+"), ArithNode.Operator.ADD.symbol());
+    }
+
+    @Test void testCallSitesRelink() throws IOException, InterpretationException {
+        // One call site, and one send site, reaching a different body on each call.
+        var root = compileBody("{x {fn {n} {+ n 1}}}");
+        assertEquals(new VNum(2), run(root, interpreter.evaluate("{fn {f} {f 1}}")));
+        assertEquals(new VNum(20), run(root, interpreter.evaluate("{fn {f} {* 10 {f 1}}}")));
+        assertEquals(new VNum(2), run(root, interpreter.evaluate("{fn {f} {f 1}}")));
+
+        var send = compileBody("{x :m 3}");
+        assertEquals(new VNum(6), run(send, interpreter.evaluate("{obj {:m {n} {* n 2}}}")));
+        assertEquals(new VNum(9), run(send, interpreter.evaluate("{obj {:m {n} {* n 3}}}")));
+        assertThrows(InterpretationException.class, () -> run(send, interpreter.evaluate("{obj {:m {} 0}}")));
+    }
+}
@@ -0,0 +1,87 @@
+package umlang.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+import immutable.List;
+import syntax.Term;
+import umlang.Interpreter;
+import umlang.ast.Exp;
+import umlang.ast.Parser;
+import umlang.ast.Resolver;
+import umlang.errors.InterpretationException;
+import umlang.opt.Optimizer;
+import umlang.opt.Optimizer.Pass;
+import umlang.value.*;
+
+public class TestOpt {
+    private Interpreter interpreter = Interpreter.newDefault();
+    private Optimizer optimizer = new Optimizer();
+
+    /** Parse, resolve and link `source` the way evaluateProgram does before optimizing. */
+    private Exp link(String source) throws IOException {
+        return Resolver.resolve(Parser.parse(Term.readFrom(source)), List.empty(), interpreter::link);
+    }
+
+    private void checkOptimizes(String source, String expected) throws IOException {
+        assertEquals(link(expected), optimizer.optimize(link(source)));
+    }
+
+    @Test void testConstantFolding() throws IOException {
+        checkOptimizes("{+ 1 {* 2 3}}", "7");
+        checkOptimizes("{= {- 3 1} 2}", "#t");
+        checkOptimizes("{= \"a\" \"a\"}", "#t");
+        // Errors are left for runtime.
+        checkOptimizes("{/ 1 0}", "{/ 1 0}");
+        checkOptimizes("{+ 1 #t}", "{+ 1 #t}");
+        assertEquals(5, optimizer.count(Pass.CONSTANT_FOLDING));
+    }
+
+    @Test void testDeadBranches() throws IOException {
+        checkOptimizes("{if #t 1 {display 2}}", "1");
+        checkOptimizes("{if {= 1 2} 1 {display 2}}", "{display 2}");
+        checkOptimizes("{if {cell #t} 1 2}", "{if {cell #t} 1 2}");
+        assertEquals(2, optimizer.count(Pass.DEAD_BRANCH_ELIMINATION));
+    }
+
+    @Test void testSeqs() throws IOException {
+        checkOptimizes("{seq 1 {seq {display \"a\"} 2} {newline} 3}", "{seq {display \"a\"} {newline} 3}");
+        checkOptimizes("{seq {fn {} 1} {obj} 4}", "4");
+        assertEquals(1, optimizer.count(Pass.SEQ_FLATTENING));
+        assertEquals(4, optimizer.count(Pass.PURE_SEQ_ELIMINATION));
+    }
+
+    @Test void testUnusedLetBindings() throws IOException {
+        checkOptimizes("{let {{x 1} {y {cell 0}} {z 2}} {fn {} z}}", "{let {{y {cell 0}} {z 2}} {fn {} z}}");
+        checkOptimizes("{let {{a 5}} {let {{x 1}} {+ a {get {cell a}}}}}", "{let {{a 5}} {+ a {get {cell a}}}}");
+        checkOptimizes("{let {{a 5}} {let {{x 1}} {fn {} a}}}", "{let {{a 5}} {fn {} a}}");
+        checkOptimizes("{let {{x 1}} {let {{y x}} {seq x y}}}", "{let {{x 1}} {let {{y x}} y}}");
+        assertEquals(3, optimizer.count(Pass.UNUSED_LET_ELIMINATION));
+    }
+
+    @Test void testDisabledPasses() throws IOException {
+        optimizer = new Optimizer(EnumSet.of(Pass.DEAD_BRANCH_ELIMINATION));
+        checkOptimizes("{if #f 0 {+ 1 2}}", "{+ 1 2}");
+        assertEquals(0, optimizer.count(Pass.CONSTANT_FOLDING));
+    }
+
+    @Test void testEvaluateProgram() throws Exception {
+        interpreter.setOptimizer(optimizer);
+        assertEquals(new VNum(120), interpreter.evaluateProgram("""
+            {define fact {fn {n} {let {{unused {* 2 3}}} {if {= n 0} {seq 0 1} {* n {fact {- n 1}}}}}}}
+            {fact 5}
+            """).unwrap());
+        assertEquals(1, optimizer.count(Pass.UNUSED_LET_ELIMINATION));
+        assertEquals(1, optimizer.count(Pass.PURE_SEQ_ELIMINATION));
+    }
+
+    @Test void testRedefinedPrimitivesAreNotFolded() throws Exception {
+        interpreter.setOptimizer(optimizer);
+        assertEquals(new VNum(-1), interpreter.evaluateProgram("{define + {fn {a b} {- a b}}} {+ 1 2}").unwrap());
+        assertEquals(0, optimizer.count(Pass.CONSTANT_FOLDING));
+    }
+}
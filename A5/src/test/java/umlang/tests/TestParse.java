@@ -80,6 +80,48 @@ public class TestParse {
             new TryCatch(new Num(123), new AtomSymbol("x"), new Num(234)));
     }
 
+    @Test void testResolve() throws IOException {
+        var x = new AtomSymbol("x");
+        var y = new AtomSymbol("y");
+        assertEquals(ref("x"), Resolver.resolve(parse("x")));
+        assertEquals(
+            new Let(List.of(x, y), List.of(new Num(1), ref("x")),
+                new Call(ref("+"), List.of(new LocalRef(x, 0, 0), new LocalRef(y, 0, 1)))),
+            Resolver.resolve(parse("{let {{x 1} {y x}} {+ x y}}")));
+        assertEquals(
+            new Let(List.of(x), List.of(new Num(1)),
+                new Fn(List.of(y), new Call(ref("+"), List.of(new LocalRef(x, 1, 0), new LocalRef(y, 0, 0))),
+                    List.of(new LocalRef(x, 0, 0)))),
+            Resolver.resolve(parse("{let {{x 1}} {fn {y} {+ x y}}}")));
+        // The outer fn captures x only so that the inner fn can capture it in turn; y is never referenced.
+        assertEquals(
+            new Let(List.of(x, y), List.of(new Num(1), new Num(2)),
+                new Fn(List.of(),
+                    new Fn(List.of(), new LocalRef(x, 1, 0), List.of(new LocalRef(x, 1, 0))),
+                    List.of(new LocalRef(x, 0, 0)))),
+            Resolver.resolve(parse("{let {{x 1} {y 2}} {fn {} {fn {} x}}}")));
+        assertEquals(
+            new ExtendObj(new AtomSymbol(":m"), List.of(x), new Call(new LocalRef(new AtomSymbol("self"), 0, 0), List.of(new LocalRef(x, 0, 1))), new InertObj()),
+            Resolver.resolve(parse("{obj {:m {x} {self x}}}")));
+    }
+
+    @Test void testLinkPrimOps() throws IOException {
+        var globals = new umlang.GlobalEnvironment<umlang.value.Value>();
+        var plus = globals.cell(new AtomSymbol("+"));
+        assertEquals(
+            new PrimOp(PrimOp.Kind.ADD, List.of(new Num(1), new Num(2)), plus),
+            Resolver.resolve(parse("{+ 1 2}"), List.empty(), globals::cell));
+        // The wrong number of arguments stays an ordinary call, to signal BadArgumentCount.
+        assertEquals(
+            new Call(new GlobalRef(new AtomSymbol("+"), plus), List.of(new Num(1))),
+            Resolver.resolve(parse("{+ 1}"), List.empty(), globals::cell));
+        // Once the name is declared it no longer means the primitive.
+        globals.declare(new AtomSymbol("+"));
+        assertEquals(
+            new Call(new GlobalRef(new AtomSymbol("+"), plus), List.of(new Num(1), new Num(2))),
+            Resolver.resolve(parse("{+ 1 2}"), List.empty(), globals::cell));
+    }
+
     @Test void testParseFailure() {
         assertParseError("Bad 'if' syntax", () -> parse("{if #t then 1 else 2}"));
         assertParseError("Bad 'let' syntax", () -> parse("{let {{x 123 234}} x}"));
@@ -0,0 +1,118 @@
+package umlang.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import immutable.Maybe;
+import syntax.TermReader;
+import umlang.ast.Parser;
+import umlang.errors.InterpretationException;
+import umlang.value.*;
+import umlang.vm.RegisterVM;
+import umlang.vm.Scheduler;
+import umlang.vm.VM;
+
+public class TestVM {
+    private static final String FIB = """
+        {define fib {fn {n} {if {= n 0} 0 {if {= n 1} 1 {+ {fib {- n 1}} {fib {- n 2}}}}}}}
+        {fib 15}
+        """;
+
+    private static final String COUNTER = """
+        {define count {fn {c n} {if {= n 0} {get c} {seq {set c {+ {get c} 1}} {count c {- n 1}}}}}}
+        {define counter {obj {:run {n} {let {{c {cell 0}}} {count c n}}}}}
+        {counter :run 500}
+        """;
+
+    /** Run `source` on a fresh VM, answering its step count after checking its result is `expected`. */
+    private long steps(boolean fuse, String source, Value expected) throws Exception {
+        var vm = new VM(fuse);
+        Maybe<Value> result = vm.evaluateProgram(source);
+        assertEquals(expected, result.unwrap());
+        return vm.steps();
+    }
+
+    @Test void testFusionReducesSteps() throws Exception {
+        var plain = steps(false, FIB, new VNum(610));
+        var fused = steps(true, FIB, new VNum(610));
+        assertTrue(fused * 3 < plain, "fib: " + plain + " steps unfused, " + fused + " fused");
+
+        plain = steps(false, COUNTER, new VNum(500));
+        fused = steps(true, COUNTER, new VNum(500));
+        assertTrue(fused * 3 < plain, "counter: " + plain + " steps unfused, " + fused + " fused");
+    }
+
+    @Test void testDeepRecursion() throws Exception {
+        // Far deeper than the Java stack allows, and across many segments of the frame stack.
+        var vm = new VM();
+        vm.evaluateProgram("{define sum {fn {n} {if {= n 0} 0 {+ n {sum {- n 1}}}}}}");
+        assertEquals(new VNum(50005000), vm.evaluateProgram("{sum 10000}").unwrap());
+        assertEquals(new VNum(125000250000.0), vm.evaluateProgram("{sum 500000}").unwrap());
+
+        // An error deep in the recursion leaves nothing behind on the stack.
+        vm.evaluateProgram("{define bad {fn {n} {if {= n 0} {+ #t 1} {+ n {bad {- n 1}}}}}}");
+        assertThrows(InterpretationException.class, () -> vm.evaluateProgram("{bad 5000}"));
+        assertEquals(new VNum(6), vm.evaluateProgram("{sum 3}").unwrap());
+    }
+
+    @Test void testRegisterVMTailCalls() throws Exception {
+        var vm = new RegisterVM();
+        assertEquals(new VNum(0), vm.evaluateProgram("""
+            {define count-down {fn {n} {if {= n 0} n {count-down {- n 1}}}}}
+            {count-down 1000000}
+            """).unwrap());
+    }
+
+    @Test void testPreemption() throws Exception {
+        var vm = new VM();
+        var program = new TermReader(FIB).readAll().terms().map(Parser::parseToplevel);
+        var process = vm.spawn(program);
+        var slices = 0;
+        var before = vm.steps();
+        while (!process.run(1000)) {
+            slices++;
+            assertTrue(vm.steps() - before <= 1000L * slices, "slice " + slices + " overran its fuel");
+        }
+        assertTrue(slices > 5, "fib 15 finished in " + slices + " slices");
+        assertEquals(new VNum(610), process.result().unwrap());
+
+        // A program that never halts only ever runs for the fuel it is given.
+        var omega = vm.spawn(new TermReader("{define omega {fn {} {omega}}} {omega}").readAll().terms().map(Parser::parseToplevel));
+        for (var i = 0; i < 100; i++) {
+            assertTrue(!omega.run(500));
+        }
+
+        // Meanwhile the VM itself is still usable, with its own stack.
+        assertEquals(new VNum(610), vm.evaluateProgram("{fib 15}").unwrap());
+    }
+
+    @Test void testScheduler() throws Exception {
+        try (var scheduler = new Scheduler(2, 1000)) {
+            var spinners = new ArrayList<Scheduler.Task>();
+            for (var i = 0; i < 4; i++) {
+                spinners.add(scheduler.submit("{define omega {fn {} {omega}}} {omega}"));
+            }
+            var workers = new ArrayList<Scheduler.Task>();
+            for (var i = 0; i < 50; i++) {
+                workers.add(scheduler.submit(FIB));
+            }
+            var failing = scheduler.submit("{+ 1 #t}");
+            for (var task : workers) {
+                assertEquals(new VNum(610), task.result().get(30, TimeUnit.SECONDS).unwrap());
+            }
+            assertThrows(ExecutionException.class, () -> failing.result().get(30, TimeUnit.SECONDS));
+            for (var task : spinners) {
+                assertTrue(!task.result().isDone());
+                assertTrue(task.slices() > 0);
+                task.cancel();
+            }
+        }
+    }
+}